@@ -19,6 +19,12 @@ java {
     withSourcesJar()
 }
 
+// the incubating vector api is compiled on its own, so the rest of the code
+// neither needs the module nor warns about it, see DamageBatch
+val vector: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output
+}
+
 repositories {
     mavenCentral()
     mavenLocal()
@@ -42,8 +48,21 @@ tasks.withType<JavaCompile> {
     options.encoding = "UTF-8"
 }
 
+tasks.named<JavaCompile>(vector.compileJavaTaskName) {
+    options.compilerArgs.add("--add-modules=jdk.incubator.vector")
+}
+
+tasks.jar {
+    from(vector.output)
+}
+
+tasks.named<Jar>("sourcesJar") {
+    from(vector.allSource)
+}
+
 tasks.shadowJar {
     archiveFileName = "Laboratory-1.0.0.jar"
+    from(vector.output)
 
     dependencies {
         include(dependency("me.kubbidev.laboratory:.*"))
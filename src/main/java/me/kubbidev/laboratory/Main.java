@@ -231,13 +231,17 @@ public class Main {
             super(schedulerAdapter, scheduleSettings(1, TimeUnit.DAYS));
         }
 
+        public BirthdayTask(SchedulerAdapter schedulerAdapter, Clock clock) {
+            super(schedulerAdapter, scheduleSettings(1, TimeUnit.DAYS), clock);
+        }
+
         @Override
         public void whenScheduled() {
             LocalDateTime nextScheduledDate = getNextScheduleDate();
 
             log.info("Next schedule date: ");
             log.info("  " + nextScheduledDate.format(DATE_FORMAT));
-            log.info("  " + DurationFormatter.LONG.format(Duration.between(Instant.now(), nextScheduledDate.atZone(ZoneId.systemDefault()).toInstant())));
+            log.info("  " + DurationFormatter.LONG.format(Duration.between(getClock().instant(), nextScheduledDate.atZone(getClock().getZone()).toInstant())));
         }
 
         @InitialLocalTime(hour = 0, minute = 0, second = 0)
@@ -0,0 +1,158 @@
+package me.kubbidev.laboratory.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.cooldown.Cooldown;
+import me.kubbidev.laboratory.cooldown.CooldownMap;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Measures the throughput of {@link CooldownMap#concurrent()} under contention.
+ * <p>
+ * Every thread tests random keys among a small set of hot keys shared by
+ * all threads, and replaces the cooldown of one key every
+ * {@link #PUT_EVERY} operations. The same workload is then run on a
+ * {@link CooldownMap#create() plain map} guarded by a single lock, for
+ * comparison. Each map is measured with 1, 2, 4, 8 and 16 threads.
+ * <p>
+ * Usage: {@code ConcurrentCooldownBenchmark [seconds] [keys]}
+ */
+@Slf4j
+public final class ConcurrentCooldownBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+
+    // one put for this many operations, the others being tests
+    private static final int PUT_EVERY = 16;
+
+    // the number of operations between two reads of the clock
+    private static final int CHECK_EVERY = 1024;
+
+    private ConcurrentCooldownBenchmark() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 3;
+        int keys = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        log.info("{} available processors, {} keys", Runtime.getRuntime().availableProcessors(), keys);
+
+        // warm up
+        measure("concurrent", new ConcurrentWorkload(keys), 4, 1, false);
+        measure("locked", new LockedWorkload(keys), 4, 1, false);
+
+        for (int threads : THREADS) {
+            measure("concurrent", new ConcurrentWorkload(keys), threads, seconds, true);
+        }
+        for (int threads : THREADS) {
+            measure("locked", new LockedWorkload(keys), threads, seconds, true);
+        }
+    }
+
+    private static void measure(String name, Workload workload, int threads, long seconds, boolean report) throws InterruptedException {
+        LongAdder operations = new LongAdder();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+        long[] deadline = new long[1];
+
+        for (int t = 0; t < threads; t++) {
+            long seed = t;
+            Thread thread = new Thread(() -> {
+                SplittableRandom random = new SplittableRandom(seed);
+                long count = 0;
+                try {
+                    start.await();
+                    do {
+                        for (int i = 0; i < CHECK_EVERY; i++) {
+                            int key = random.nextInt(workload.keys());
+                            if (random.nextInt(PUT_EVERY) == 0) {
+                                workload.put(key);
+                            } else {
+                                workload.test(key);
+                            }
+                        }
+                        count += CHECK_EVERY;
+                    } while (System.nanoTime() - deadline[0] < 0);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    operations.add(count);
+                    done.countDown();
+                }
+            }, "cooldown-benchmark-" + t);
+            thread.setDaemon(true);
+            thread.start();
+        }
+
+        long begin = System.nanoTime();
+        deadline[0] = begin + TimeUnit.SECONDS.toNanos(seconds);
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        if (report) {
+            log.info("{} map, {} threads: {} ops/s", name, threads, operations.sum() * TimeUnit.SECONDS.toNanos(1) / elapsed);
+        }
+    }
+
+    private interface Workload {
+
+        int keys();
+
+        void test(int key);
+
+        void put(int key);
+    }
+
+    private static final class ConcurrentWorkload implements Workload {
+        private final CooldownMap<Integer> map = CooldownMap.concurrent(Cooldown.concurrent(50, TimeUnit.MILLISECONDS));
+        private final int keys;
+
+        ConcurrentWorkload(int keys) {
+            this.keys = keys;
+        }
+
+        @Override
+        public int keys() {
+            return this.keys;
+        }
+
+        @Override
+        public void test(int key) {
+            this.map.test(key);
+        }
+
+        @Override
+        public void put(int key) {
+            this.map.put(key, Cooldown.concurrent(50, TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private static final class LockedWorkload implements Workload {
+        private final CooldownMap<Integer> map = CooldownMap.create();
+        private final int keys;
+
+        LockedWorkload(int keys) {
+            this.keys = keys;
+            for (int key = 0; key < keys; key++) {
+                put(key);
+            }
+        }
+
+        @Override
+        public int keys() {
+            return this.keys;
+        }
+
+        @Override
+        public synchronized void test(int key) {
+            this.map.test(key);
+        }
+
+        @Override
+        public synchronized void put(int key) {
+            this.map.put(key, Cooldown.of(50, TimeUnit.MILLISECONDS));
+        }
+    }
+}
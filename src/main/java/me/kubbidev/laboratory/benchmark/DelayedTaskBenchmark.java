@@ -0,0 +1,92 @@
+package me.kubbidev.laboratory.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.scheduler.AsyncJavaScheduler;
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+import me.kubbidev.laboratory.scheduler.SchedulerTask;
+import me.kubbidev.laboratory.scheduler.TimingWheelScheduler;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link AsyncJavaScheduler} and {@link TimingWheelScheduler}
+ * with a large number of pending delayed tasks.
+ * <p>
+ * For each scheduler, the given number of tasks is scheduled with random
+ * delays, then every other task is cancelled and the remaining ones are
+ * waited for. The time spent scheduling, cancelling and the average
+ * lateness of the tasks which were not cancelled are reported. Cancelled
+ * tasks may run while the others are still being scheduled: they are only
+ * counted, so they do not skew the lateness.
+ * <p>
+ * Usage: {@code DelayedTaskBenchmark [tasks] [maxDelayMillis]}
+ */
+@Slf4j
+public final class DelayedTaskBenchmark {
+
+    private DelayedTaskBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        long maxDelayMillis = args.length > 1 ? Long.parseLong(args[1]) : 5000;
+
+        // warm up both schedulers
+        run("AsyncJavaScheduler", AsyncJavaScheduler::new, Math.min(tasks, 100_000), 200, false);
+        run("TimingWheelScheduler", TimingWheelScheduler::new, Math.min(tasks, 100_000), 200, false);
+
+        run("AsyncJavaScheduler", AsyncJavaScheduler::new, tasks, maxDelayMillis, true);
+        run("TimingWheelScheduler", TimingWheelScheduler::new, tasks, maxDelayMillis, true);
+    }
+
+    private static void run(String name, Supplier<SchedulerAdapter> factory, int tasks, long maxDelayMillis, boolean report) throws InterruptedException {
+        SchedulerAdapter scheduler = factory.get();
+        try {
+            SplittableRandom random = new SplittableRandom(42);
+            SchedulerTask[] handles = new SchedulerTask[tasks];
+            CountDownLatch done = new CountDownLatch((tasks + 1) / 2);
+            LongAdder lateness = new LongAdder();
+            LongAdder ranCancelled = new LongAdder();
+
+            long start = System.nanoTime();
+            for (int i = 0; i < tasks; i++) {
+                long delay = 1 + random.nextLong(maxDelayMillis);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(delay);
+                // odd tasks are cancelled once every task is scheduled, some may run before
+                handles[i] = scheduler.asyncLater((i & 1) == 0 ? () -> {
+                    lateness.add(System.nanoTime() - deadline);
+                    done.countDown();
+                } : ranCancelled::increment, delay, TimeUnit.MILLISECONDS);
+            }
+            long scheduling = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 1; i < tasks; i += 2) {
+                handles[i].cancel();
+            }
+            long cancelling = System.nanoTime() - start;
+
+            done.await();
+            long ran = (tasks + 1) / 2;
+
+            if (report) {
+                log.info("{}: scheduled {} tasks in {}ms ({}ns/task), cancelled {} in {}ms ({}ns/task, {} ran before), average lateness {}ms",
+                        name,
+                        tasks, millis(scheduling), scheduling / tasks,
+                        tasks / 2, millis(cancelling), cancelling / Math.max(tasks / 2, 1), ranCancelled.sum(),
+                        millis(lateness.sum() / ran));
+            }
+        } finally {
+            scheduler.shutdownScheduler();
+            scheduler.shutdownExecutor();
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
@@ -0,0 +1,149 @@
+package me.kubbidev.laboratory.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.scheduler.AsyncJavaScheduler;
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+import me.kubbidev.laboratory.scheduler.VirtualThreadScheduler;
+import me.kubbidev.laboratory.util.MoreFiles;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntConsumer;
+import java.util.function.Supplier;
+
+/**
+ * Compares {@link AsyncJavaScheduler} and {@link VirtualThreadScheduler}
+ * under I/O bound load.
+ * <p>
+ * Three workloads are measured for each scheduler:
+ * <ul>
+ *     <li>remote calls, simulated by tasks sleeping for a fixed time,</li>
+ *     <li>file saves, each task writing and syncing a small file,</li>
+ *     <li>starvation, the latency of a short task submitted while the
+ *     scheduler is busy with blocking tasks.</li>
+ * </ul>
+ * Usage: {@code SchedulerBenchmark [tasks] [blockMillis]}
+ */
+@Slf4j
+public final class SchedulerBenchmark {
+    private static final byte[] PAYLOAD = new byte[4096];
+
+    private SchedulerBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 2000;
+        long blockMillis = args.length > 1 ? Long.parseLong(args[1]) : 20;
+
+        Path folder = Files.createTempDirectory("laboratory-benchmark");
+        try {
+            run("AsyncJavaScheduler", AsyncJavaScheduler::new, tasks, blockMillis, folder);
+            run("VirtualThreadScheduler", VirtualThreadScheduler::new, tasks, blockMillis, folder);
+        } finally {
+            MoreFiles.deleteDirectory(folder);
+        }
+    }
+
+    private static void run(String name, Supplier<SchedulerAdapter> factory, int tasks, long blockMillis, Path folder) throws InterruptedException {
+        SchedulerAdapter scheduler = factory.get();
+        try {
+            // warm up both the scheduler and the file system
+            measure(scheduler, Math.min(tasks, 200), i -> sleep(1));
+            measure(scheduler, Math.min(tasks, 200), i -> save(folder.resolve("warmup-" + i)));
+
+            long sleeping = measure(scheduler, tasks, i -> sleep(blockMillis));
+            long saving = measure(scheduler, tasks, i -> save(folder.resolve(name + "-" + i)));
+            long starvation = starvation(scheduler, tasks, blockMillis);
+
+            log.info("{}: {} remote calls of {}ms in {}ms ({} calls/s), {} file saves in {}ms ({} saves/s), short task latency under load {}ms",
+                    name,
+                    tasks, blockMillis, millis(sleeping), perSecond(tasks, sleeping),
+                    tasks, millis(saving), perSecond(tasks, saving),
+                    millis(starvation));
+        } finally {
+            scheduler.shutdownScheduler();
+            scheduler.shutdownExecutor();
+        }
+    }
+
+    /**
+     * Submits the given number of tasks and waits for all of them to complete.
+     *
+     * @return the elapsed time in nanoseconds
+     */
+    private static long measure(SchedulerAdapter scheduler, int tasks, IntConsumer task) throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(tasks);
+        long start = System.nanoTime();
+        for (int i = 0; i < tasks; i++) {
+            int index = i;
+            scheduler.executeAsync(() -> {
+                try {
+                    task.accept(index);
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        done.await();
+        return System.nanoTime() - start;
+    }
+
+    /**
+     * Submits blocking tasks, then measures how long a short task waits before running.
+     *
+     * @return the latency in nanoseconds
+     */
+    private static long starvation(SchedulerAdapter scheduler, int tasks, long blockMillis) throws InterruptedException {
+        CountDownLatch blocking = new CountDownLatch(tasks);
+        for (int i = 0; i < tasks; i++) {
+            scheduler.executeAsync(() -> {
+                try {
+                    sleep(blockMillis);
+                } finally {
+                    blocking.countDown();
+                }
+            });
+        }
+
+        CountDownLatch ran = new CountDownLatch(1);
+        long start = System.nanoTime();
+        scheduler.executeAsync(ran::countDown);
+        ran.await();
+        long latency = System.nanoTime() - start;
+
+        blocking.await();
+        return latency;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void save(Path file) {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.wrap(PAYLOAD));
+            channel.force(true);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static long millis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    private static long perSecond(int tasks, long nanos) {
+        return tasks * TimeUnit.SECONDS.toNanos(1) / Math.max(nanos, 1);
+    }
+}
@@ -0,0 +1,97 @@
+package me.kubbidev.laboratory.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+import me.kubbidev.laboratory.scheduler.VirtualTimeScheduler;
+import me.kubbidev.laboratory.util.ScheduledTask;
+
+import java.time.*;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulates a year of scheduling on a {@link VirtualTimeScheduler}.
+ * <p>
+ * A {@link ScheduledTask} running daily at midnight is scheduled alongside
+ * the given number of repeating tasks, with random intervals between a
+ * minute and a day, then the clock is advanced one day at a time. The
+ * simulation is checked to have run the daily task at midnight every day,
+ * and the number of tasks run and the time taken are reported. Since the
+ * clock is virtual and the random intervals are seeded, every run executes
+ * the exact same tasks in the exact same order.
+ * <p>
+ * Usage: {@code VirtualTimeBenchmark [tasks] [days]}
+ */
+@Slf4j
+public final class VirtualTimeBenchmark {
+    private static final Instant START = LocalDateTime.of(2024, 1, 1, 9, 30).toInstant(ZoneOffset.UTC);
+
+    private static volatile long sink;
+
+    private VirtualTimeBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int tasks = args.length > 0 ? Integer.parseInt(args[0]) : 1000;
+        int days = args.length > 1 ? Integer.parseInt(args[1]) : 365;
+
+        // warm up
+        run(tasks, 30, false);
+        run(tasks, days, true);
+    }
+
+    private static void run(int tasks, int days, boolean report) {
+        VirtualTimeScheduler scheduler = new VirtualTimeScheduler(START, ZoneOffset.UTC);
+        try {
+            MidnightTask midnight = new MidnightTask(scheduler, scheduler.getClock());
+            midnight.schedule();
+
+            SplittableRandom random = new SplittableRandom(42);
+            for (int i = 0; i < tasks; i++) {
+                long interval = 1 + random.nextLong(TimeUnit.DAYS.toMinutes(1));
+                scheduler.asyncRepeating(() -> sink++, interval, TimeUnit.MINUTES);
+            }
+
+            long start = System.nanoTime();
+            long ran = 0;
+            for (int day = 0; day < days; day++) {
+                ran += scheduler.advance(1, TimeUnit.DAYS);
+            }
+            long elapsed = System.nanoTime() - start;
+
+            if (midnight.runs != days || midnight.late != 0) {
+                throw new IllegalStateException("Expected " + days + " runs at midnight, got " + midnight.runs + " with " + midnight.late + " late");
+            }
+            if (report) {
+                log.info("simulated {} days with {} repeating tasks: {} tasks run in {}ms ({}ns/task), clock at {}",
+                        days, tasks, ran, TimeUnit.NANOSECONDS.toMillis(elapsed), elapsed / Math.max(ran, 1),
+                        scheduler.getClock().instant());
+            }
+        } finally {
+            scheduler.shutdownScheduler();
+            scheduler.shutdownExecutor();
+        }
+    }
+
+    private static final class MidnightTask extends ScheduledTask {
+        private int runs = 0;
+        private int late = 0;
+
+        MidnightTask(SchedulerAdapter schedulerAdapter, Clock clock) {
+            super(schedulerAdapter, scheduleSettings(1, TimeUnit.DAYS), clock);
+        }
+
+        @Override
+        public void whenScheduled() {
+        }
+
+        @InitialLocalTime(hour = 0, minute = 0, second = 0)
+        @Override
+        public void run() {
+            this.runs++;
+            if (!LocalTime.now(getClock()).equals(LocalTime.MIDNIGHT)) {
+                this.late++;
+            }
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package me.kubbidev.laboratory.benchmark;
+
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.scheduler.AsyncJavaScheduler;
+import me.kubbidev.laboratory.scheduler.WorkerPoolSizer;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Compares the fixed and adaptive worker pools of {@link AsyncJavaScheduler}.
+ * <p>
+ * Each workload keeps submitting tasks for a fixed duration, and the
+ * throughput over the whole duration is reported, including the time the
+ * adaptive pool takes to resize:
+ * <ul>
+ *     <li>cpu, tasks hashing in a loop for about 100 microseconds,</li>
+ *     <li>blocking, tasks sleeping for 5 milliseconds,</li>
+ *     <li>managed, tasks sleeping for 5 milliseconds through {@link AsyncJavaScheduler#block(Runnable)},</li>
+ *     <li>mixed, one blocking task for every three cpu tasks.</li>
+ * </ul>
+ * The number of processors seen by the pools can be changed with the
+ * {@code -XX:ActiveProcessorCount} JVM option, for instance to compare a
+ * 2 core container with a 32 core host.
+ * <p>
+ * Usage: {@code WorkerPoolBenchmark [seconds]}
+ */
+@Slf4j
+public final class WorkerPoolBenchmark {
+    // the number of tasks submitted at once, waiting for a batch before submitting the next one
+    private static final int BATCH = 2000;
+
+    private static volatile long sink;
+
+    private WorkerPoolBenchmark() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        long seconds = args.length > 0 ? Long.parseLong(args[0]) : 5;
+        log.info("{} available processors", Runtime.getRuntime().availableProcessors());
+
+        run("fixed", AsyncJavaScheduler::new, seconds);
+        run("adaptive", AsyncJavaScheduler::adaptive, seconds);
+    }
+
+    private static void run(String name, Supplier<AsyncJavaScheduler> factory, long seconds) throws InterruptedException {
+        AsyncJavaScheduler scheduler = factory.get();
+        try {
+            measure(scheduler, name, "cpu", seconds, (s) -> cpu());
+            measure(scheduler, name, "blocking", seconds, (s) -> sleep(5));
+            measure(scheduler, name, "managed", seconds, (s) -> s.block(() -> sleep(5)));
+            measure(scheduler, name, "mixed", seconds, new Consumer<>() {
+                private int count = 0;
+
+                @Override
+                public void accept(AsyncJavaScheduler s) {
+                    if ((this.count++ & 3) == 0) {
+                        sleep(5);
+                    } else {
+                        cpu();
+                    }
+                }
+            });
+        } finally {
+            scheduler.shutdownScheduler();
+            scheduler.shutdownExecutor();
+        }
+    }
+
+    private static void measure(AsyncJavaScheduler scheduler, String name, String workload, long seconds, Consumer<AsyncJavaScheduler> task) throws InterruptedException {
+        long start = System.nanoTime();
+        long end = start + TimeUnit.SECONDS.toNanos(seconds);
+        long tasks = 0;
+        while (System.nanoTime() < end) {
+            CountDownLatch done = new CountDownLatch(BATCH);
+            for (int i = 0; i < BATCH; i++) {
+                scheduler.executeAsync(() -> {
+                    try {
+                        task.accept(scheduler);
+                    } finally {
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+            tasks += BATCH;
+        }
+        long elapsed = System.nanoTime() - start;
+
+        int parallelism = scheduler.getPoolSizer().map(WorkerPoolSizer::getParallelism).orElse(-1);
+        log.info("{} pool, {} workload: {} tasks/s{}",
+                name, workload, tasks * TimeUnit.SECONDS.toNanos(1) / elapsed,
+                parallelism == -1 ? "" : ", parallelism " + parallelism);
+    }
+
+    private static void cpu() {
+        long hash = System.nanoTime();
+        for (int i = 0; i < 20_000; i++) {
+            hash = hash * 0x9E3779B97F4A7C15L + i;
+            hash ^= hash >>> 29;
+        }
+        sink = hash;
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
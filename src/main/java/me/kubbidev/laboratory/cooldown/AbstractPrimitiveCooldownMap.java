@@ -0,0 +1,511 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A cooldown map storing keys made of one or two longs, along with the
+ * last tested time and the timeout of their cooldown, in an open addressing
+ * table whose slots are kept by a {@link CooldownSlots} storage.
+ * <p>
+ * No object is kept per entry, and the primitive query methods never
+ * allocate. {@link #get(Object)} and {@link #getAll()} return views
+ * reading and writing through to the table.
+ * <p>
+ * A populating map associates a key without cooldown with a new cooldown
+ * using the default timeout when testing, resetting or setting the last
+ * tested time of the key. Otherwise, cooldowns are only added by
+ * {@link #put(Object, Cooldown)}, and the other methods treat absent keys
+ * the same way {@link CooldownMap#create()} does.
+ * <p>
+ * This map is not thread safe.
+ *
+ * @param <T> the type
+ */
+abstract class AbstractPrimitiveCooldownMap<T> implements CooldownMap<T> {
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final float LOAD_FACTOR = 0.75f;
+
+    // the number of longs making up a key
+    private final int keyWidth;
+
+    // the cooldown duration in millis of populated entries
+    private final long defaultTimeout;
+
+    // whether absent keys are associated with a new cooldown when tested or set
+    private final boolean populating;
+
+    private final TimeSource timeSource;
+
+    private CooldownSlots slots;
+    private int mask;
+    private int threshold;
+
+    private final Map<T, Cooldown> mapView = new MapView();
+
+    /**
+     * Creates a populating map stored on heap.
+     */
+    AbstractPrimitiveCooldownMap(int keyWidth, long amount, TimeUnit unit, TimeSource timeSource, int expectedSize) {
+        Preconditions.checkArgument(amount >= 0, "timeout cannot be negative");
+        Preconditions.checkArgument(expectedSize >= 0, "expected size cannot be negative");
+        this.keyWidth = keyWidth;
+        this.defaultTimeout = unit.toMillis(amount);
+        this.populating = true;
+        this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+        setSlots(new ArrayCooldownSlots(keyWidth, tableSizeFor(expectedSize)));
+    }
+
+    /**
+     * Creates a map over the given storage, only holding the cooldowns put into it.
+     */
+    AbstractPrimitiveCooldownMap(int keyWidth, CooldownSlots slots, TimeSource timeSource) {
+        this.keyWidth = keyWidth;
+        this.defaultTimeout = 0;
+        this.populating = false;
+        this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+        setSlots(slots);
+    }
+
+    /**
+     * @return the first long of the key
+     */
+    abstract long high(T key);
+
+    /**
+     * @return the second long of the key, ignored for single long keys
+     */
+    abstract long low(T key);
+
+    /**
+     * @return the key made of the given longs
+     */
+    abstract T key(long high, long low);
+
+    /**
+     * @return the timeout in milliseconds of populated cooldowns
+     */
+    public long getDefaultTimeout() {
+        return this.defaultTimeout;
+    }
+
+    /**
+     * @return the source of the current time used by this map
+     */
+    public TimeSource getTimeSource() {
+        return this.timeSource;
+    }
+
+    /**
+     * @return the number of cooldowns in this map
+     */
+    public int size() {
+        return this.slots.size();
+    }
+
+    /**
+     * Removes every cooldown which is not active anymore.
+     *
+     * @return the number of removed cooldowns
+     */
+    public int removeInactive() {
+        long now = this.timeSource.currentTimeMillis();
+        int removed = 0;
+        for (int i = 0; i <= this.mask; ) {
+            // slots are re-checked after a removal, as it may shift another entry in
+            if (this.slots.isUsed(i) && now - this.slots.lastTested(i) > this.slots.timeout(i)) {
+                removeSlot(i);
+                removed++;
+            } else {
+                i++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes every cooldown.
+     */
+    public void clear() {
+        this.slots.clear();
+    }
+
+    /* CooldownMap */
+
+    @Override
+    public Optional<Cooldown> get(T key) {
+        Objects.requireNonNull(key, "key");
+        long high = high(key);
+        long low = low(key);
+        return find(high, low) < 0 ? Optional.empty() : Optional.of(new EntryCooldown(high, low));
+    }
+
+    @Override
+    public void put(T key, Cooldown cooldown) {
+        Objects.requireNonNull(key, "key");
+        put(high(key), low(key), cooldown.getLastTested().orElse(0), cooldown.getTimeout());
+    }
+
+    /**
+     * Returns an unmodifiable view of the cooldowns of this map.
+     *
+     * @return a map view
+     */
+    @Override
+    public Map<T, Cooldown> getAll() {
+        return this.mapView;
+    }
+
+    @Override
+    public boolean test(T key) {
+        Objects.requireNonNull(key, "key");
+        return test(high(key), low(key));
+    }
+
+    @Override
+    public boolean testSilently(T key) {
+        Objects.requireNonNull(key, "key");
+        return testSilently(high(key), low(key));
+    }
+
+    @Override
+    public long elapsed(T key) {
+        Objects.requireNonNull(key, "key");
+        return elapsed(high(key), low(key));
+    }
+
+    @Override
+    public void reset(T key) {
+        Objects.requireNonNull(key, "key");
+        setLastTested(high(key), low(key), this.timeSource.currentTimeMillis());
+    }
+
+    @Override
+    public long remainingMillis(T key) {
+        Objects.requireNonNull(key, "key");
+        return remainingMillis(high(key), low(key));
+    }
+
+    @Override
+    public long remainingTime(T key, TimeUnit unit) {
+        return Math.max(0L, unit.convert(remainingMillis(key), TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public OptionalLong getLastTested(T key) {
+        Objects.requireNonNull(key, "key");
+        return lastTested(find(high(key), low(key)));
+    }
+
+    @Override
+    public void setLastTested(T key, long time) {
+        Objects.requireNonNull(key, "key");
+        setLastTested(high(key), low(key), time);
+    }
+
+    /**
+     * Removes the cooldown associated with the given key.
+     *
+     * @param key the key
+     * @return true if a cooldown was removed
+     */
+    public boolean remove(T key) {
+        Objects.requireNonNull(key, "key");
+        return remove(high(key), low(key));
+    }
+
+    /* primitive operations */
+
+    boolean test(long high, long low) {
+        long now = this.timeSource.currentTimeMillis();
+        int slot = find(high, low);
+        if (slot < 0) {
+            if (this.populating) {
+                insert(high, low, now, this.defaultTimeout);
+            }
+            return true;
+        }
+        if (now - this.slots.lastTested(slot) > this.slots.timeout(slot)) {
+            this.slots.setLastTested(slot, now);
+            return true;
+        }
+        return false;
+    }
+
+    boolean testSilently(long high, long low) {
+        int slot = find(high, low);
+        return slot < 0 || this.timeSource.currentTimeMillis() - this.slots.lastTested(slot) > this.slots.timeout(slot);
+    }
+
+    long elapsed(long high, long low) {
+        int slot = find(high, low);
+        return slot < 0 ? 0L : this.timeSource.currentTimeMillis() - this.slots.lastTested(slot);
+    }
+
+    long remainingMillis(long high, long low) {
+        int slot = find(high, low);
+        if (slot < 0) {
+            return 0L;
+        }
+        long diff = this.timeSource.currentTimeMillis() - this.slots.lastTested(slot);
+        long timeout = this.slots.timeout(slot);
+        return diff > timeout ? 0L : timeout - diff;
+    }
+
+    void setLastTested(long high, long low, long time) {
+        int slot = find(high, low);
+        if (slot >= 0) {
+            this.slots.setLastTested(slot, Math.max(time, 0));
+        } else if (this.populating) {
+            insert(high, low, Math.max(time, 0), this.defaultTimeout);
+        }
+    }
+
+    void put(long high, long low, long lastTested, long timeout) {
+        Preconditions.checkArgument(timeout >= 0, "timeout cannot be negative");
+        int slot = find(high, low);
+        if (slot < 0) {
+            insert(high, low, Math.max(lastTested, 0), timeout);
+        } else {
+            this.slots.setLastTested(slot, Math.max(lastTested, 0));
+            this.slots.setTimeout(slot, timeout);
+        }
+    }
+
+    boolean remove(long high, long low) {
+        int slot = find(high, low);
+        if (slot < 0) {
+            return false;
+        }
+        removeSlot(slot);
+        return true;
+    }
+
+    private OptionalLong lastTested(int slot) {
+        long lastTested = slot < 0 ? 0 : this.slots.lastTested(slot);
+        return lastTested == 0 ? OptionalLong.empty() : OptionalLong.of(lastTested);
+    }
+
+    /* table */
+
+    /**
+     * @return the number of slots of the table
+     */
+    int capacity() {
+        return this.mask + 1;
+    }
+
+    /**
+     * @return the number of cooldowns past which inserting a new one first calls {@link #makeRoom()}
+     */
+    int threshold() {
+        return this.threshold;
+    }
+
+    /**
+     * Makes room for a new cooldown, once the table holds {@link #threshold()}
+     * cooldowns. Doubles the capacity of the table by default.
+     */
+    void makeRoom() {
+        rehash(new ArrayCooldownSlots(this.keyWidth, capacity() << 1));
+    }
+
+    /**
+     * Copies every cooldown of this map into the given empty storage, which then replaces the current one.
+     */
+    void rehash(CooldownSlots target) {
+        CooldownSlots source = this.slots;
+        int mask = target.capacity() - 1;
+        for (int slot = 0; slot <= this.mask; slot++) {
+            if (!source.isUsed(slot)) {
+                continue;
+            }
+            long high = source.high(slot);
+            long low = source.low(slot);
+
+            int i = hash(high, low) & mask;
+            while (target.isUsed(i)) {
+                i = (i + 1) & mask;
+            }
+            target.set(i, high, low, source.lastTested(slot), source.timeout(slot));
+        }
+        target.setSize(source.size());
+        setSlots(target);
+    }
+
+    private void setSlots(CooldownSlots slots) {
+        this.slots = slots;
+        this.mask = slots.capacity() - 1;
+        this.threshold = (int) (slots.capacity() * LOAD_FACTOR);
+    }
+
+    private int find(long high, long low) {
+        for (int i = hash(high, low) & this.mask; this.slots.isUsed(i); i = (i + 1) & this.mask) {
+            if (this.slots.high(i) == high && (this.keyWidth == 1 || this.slots.low(i) == low)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void insert(long high, long low, long lastTested, long timeout) {
+        if (this.slots.size() >= this.threshold) {
+            makeRoom();
+        }
+        int i = hash(high, low) & this.mask;
+        while (this.slots.isUsed(i)) {
+            i = (i + 1) & this.mask;
+        }
+        this.slots.set(i, high, low, lastTested, timeout);
+        this.slots.setSize(this.slots.size() + 1);
+    }
+
+    /**
+     * Removes the entry at the given slot, shifting back the following
+     * entries of its cluster, so lookups never need tombstones.
+     */
+    private void removeSlot(int slot) {
+        int hole = slot;
+        for (int i = (slot + 1) & this.mask; this.slots.isUsed(i); i = (i + 1) & this.mask) {
+            long high = this.slots.high(i);
+            long low = this.slots.low(i);
+            int home = hash(high, low) & this.mask;
+            // the entry can fill the hole if the hole lies between its home slot and its slot
+            if (((i - home) & this.mask) >= ((i - hole) & this.mask)) {
+                this.slots.set(hole, high, low, this.slots.lastTested(i), this.slots.timeout(i));
+                hole = i;
+            }
+        }
+        this.slots.free(hole);
+        this.slots.setSize(this.slots.size() - 1);
+    }
+
+    private static int tableSizeFor(int expectedSize) {
+        int capacity = (int) Math.ceil(expectedSize / (double) LOAD_FACTOR);
+        return Math.max(DEFAULT_CAPACITY, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+    }
+
+    private static int hash(long high, long low) {
+        // murmur3 finalizer
+        long h = high ^ Long.rotateLeft(low, 32);
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return (int) h;
+    }
+
+    /**
+     * A cooldown reading and writing through to the entry of a key.
+     */
+    private final class EntryCooldown implements Cooldown {
+        private final long high;
+        private final long low;
+
+        EntryCooldown(long high, long low) {
+            this.high = high;
+            this.low = low;
+        }
+
+        @Override
+        public boolean test() {
+            return AbstractPrimitiveCooldownMap.this.test(this.high, this.low);
+        }
+
+        @Override
+        public OptionalLong getLastTested() {
+            return lastTested(find(this.high, this.low));
+        }
+
+        @Override
+        public void setLastTested(long time) {
+            AbstractPrimitiveCooldownMap.this.setLastTested(this.high, this.low, time);
+        }
+
+        @Override
+        public long getTimeout() {
+            int slot = find(this.high, this.low);
+            return slot < 0 ? AbstractPrimitiveCooldownMap.this.defaultTimeout : AbstractPrimitiveCooldownMap.this.slots.timeout(slot);
+        }
+
+        @Override
+        public TimeSource getTimeSource() {
+            return AbstractPrimitiveCooldownMap.this.timeSource;
+        }
+
+        @Override
+        public Cooldown copy() {
+            return Cooldown.of(getTimeout(), TimeUnit.MILLISECONDS, AbstractPrimitiveCooldownMap.this.timeSource);
+        }
+    }
+
+    private final class MapView extends AbstractMap<T, Cooldown> {
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public boolean containsKey(Object key) {
+            try {
+                return key != null && find(high((T) key), low((T) key)) >= 0;
+            } catch (ClassCastException e) {
+                return false;
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public Cooldown get(Object key) {
+            return containsKey(key) ? new EntryCooldown(high((T) key), low((T) key)) : null;
+        }
+
+        @Override
+        public int size() {
+            return AbstractPrimitiveCooldownMap.this.size();
+        }
+
+        @Override
+        public @NotNull Set<Entry<T, Cooldown>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<T, Cooldown>> iterator() {
+                    return new Iterator<>() {
+                        private int next = advance(0);
+
+                        private int advance(int slot) {
+                            while (slot <= AbstractPrimitiveCooldownMap.this.mask && !AbstractPrimitiveCooldownMap.this.slots.isUsed(slot)) {
+                                slot++;
+                            }
+                            return slot;
+                        }
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.next <= AbstractPrimitiveCooldownMap.this.mask;
+                        }
+
+                        @Override
+                        public Entry<T, Cooldown> next() {
+                            if (!hasNext()) {
+                                throw new NoSuchElementException();
+                            }
+                            int slot = this.next;
+                            this.next = advance(slot + 1);
+
+                            long high = AbstractPrimitiveCooldownMap.this.slots.high(slot);
+                            long low = AbstractPrimitiveCooldownMap.this.slots.low(slot);
+                            return new SimpleImmutableEntry<>(key(high, low), new EntryCooldown(high, low));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return AbstractPrimitiveCooldownMap.this.size();
+                }
+            };
+        }
+    }
+}
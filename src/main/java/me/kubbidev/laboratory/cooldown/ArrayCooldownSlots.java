@@ -0,0 +1,102 @@
+package me.kubbidev.laboratory.cooldown;
+
+import java.util.Arrays;
+
+/**
+ * Slot storage kept on heap, in parallel primitive arrays.
+ */
+final class ArrayCooldownSlots implements CooldownSlots {
+    // the number of longs making up a key
+    private final int keyWidth;
+
+    private final long[] keys;
+    private final long[] lastTested;
+    private final long[] timeouts;
+    private final boolean[] used;
+    private int size;
+
+    /**
+     * @param keyWidth the number of longs making up a key, one or two
+     * @param capacity the number of slots, a power of two
+     */
+    ArrayCooldownSlots(int keyWidth, int capacity) {
+        this.keyWidth = keyWidth;
+        this.keys = new long[capacity * keyWidth];
+        this.lastTested = new long[capacity];
+        this.timeouts = new long[capacity];
+        this.used = new boolean[capacity];
+    }
+
+    @Override
+    public int capacity() {
+        return this.used.length;
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    @Override
+    public boolean isUsed(int slot) {
+        return this.used[slot];
+    }
+
+    @Override
+    public long high(int slot) {
+        return this.keys[slot * this.keyWidth];
+    }
+
+    @Override
+    public long low(int slot) {
+        return this.keyWidth == 1 ? 0 : this.keys[slot * this.keyWidth + 1];
+    }
+
+    @Override
+    public long lastTested(int slot) {
+        return this.lastTested[slot];
+    }
+
+    @Override
+    public long timeout(int slot) {
+        return this.timeouts[slot];
+    }
+
+    @Override
+    public void set(int slot, long high, long low, long lastTested, long timeout) {
+        int offset = slot * this.keyWidth;
+        this.keys[offset] = high;
+        if (this.keyWidth == 2) {
+            this.keys[offset + 1] = low;
+        }
+        this.lastTested[slot] = lastTested;
+        this.timeouts[slot] = timeout;
+        this.used[slot] = true;
+    }
+
+    @Override
+    public void setLastTested(int slot, long lastTested) {
+        this.lastTested[slot] = lastTested;
+    }
+
+    @Override
+    public void setTimeout(int slot, long timeout) {
+        this.timeouts[slot] = timeout;
+    }
+
+    @Override
+    public void free(int slot) {
+        this.used[slot] = false;
+    }
+
+    @Override
+    public void clear() {
+        Arrays.fill(this.used, false);
+        this.size = 0;
+    }
+}
@@ -0,0 +1,54 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+import me.kubbidev.laboratory.scheduler.SchedulerTask;
+
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A time source caching the time of another one, refreshed at a fixed resolution.
+ * <p>
+ * The cached time never goes backwards, and is at most one resolution
+ * behind the underlying source, plus any scheduling delay.
+ */
+public final class CachedTimeSource implements TimeSource, AutoCloseable {
+    private final TimeSource source;
+    private final SchedulerTask task;
+
+    private volatile long time;
+
+    CachedTimeSource(TimeSource source, SchedulerAdapter scheduler, long resolution, TimeUnit unit) {
+        Preconditions.checkArgument(resolution > 0, "resolution must be strictly positive");
+        this.source = Objects.requireNonNull(source, "source");
+        this.time = source.currentTimeMillis();
+        this.task = scheduler.asyncRepeating(this::refresh, resolution, unit);
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return this.time;
+    }
+
+    /**
+     * Reads the underlying time source.
+     */
+    public void refresh() {
+        long time = this.source.currentTimeMillis();
+        // only the refresh task writes, unless refreshed manually as well
+        synchronized (this) {
+            if (time > this.time) {
+                this.time = time;
+            }
+        }
+    }
+
+    /**
+     * Stops refreshing the cached time.
+     */
+    @Override
+    public void close() {
+        this.task.cancel();
+    }
+}
@@ -0,0 +1,295 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Range;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * A cooldown holding several charges, each consumed by a successful test and
+ * refilled one after the other, which can be shared between threads.
+ * <p>
+ * The whole state is a single long, the time at which every charge will be
+ * back, following the generic cell rate algorithm: charges are refilled
+ * lazily when the state is read, without any timer, and acquiring charges
+ * is a single compare and set. An acquisition which cannot succeed only
+ * reads the state, so rejecting does not contend between threads.
+ * <p>
+ * Times are kept in nanoseconds, so refill intervals below a millisecond,
+ * as needed by token buckets, do not accumulate rounding errors. The
+ * current time is still read from the {@link TimeSource} in milliseconds,
+ * so charges come back in steps of a millisecond: a token bucket refilling
+ * 5000 permits per second gets 5 permits back every millisecond.
+ * <p>
+ * As a {@link Cooldown}, the timeout is the refill interval of a single
+ * charge, the cooldown is inactive while at least one charge is available,
+ * and {@link #test()} consumes a charge.
+ */
+public final class ChargedCooldown implements Cooldown {
+    private static final VarHandle FULL_AT;
+
+    static {
+        try {
+            FULL_AT = MethodHandles.lookup().findVarHandle(ChargedCooldown.class, "fullAt", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private static final long NANOS_PER_MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    // the state of a cooldown removed from a map while full, which cannot be acquired anymore
+    private static final long RETIRED = 1;
+
+    // the time in nanos at which every charge is back, 0 if no charge was ever consumed, or RETIRED
+    private volatile long fullAt;
+
+    // the number of charges
+    private final int charges;
+
+    // the refill duration of a single charge in nanos
+    private final long interval;
+
+    // the refill duration of every charge in nanos
+    private final long burst;
+
+    private final TimeSource timeSource;
+
+    ChargedCooldown(int charges, long interval, TimeUnit unit, TimeSource timeSource) {
+        Preconditions.checkArgument(charges > 0, "charges must be strictly positive");
+        Preconditions.checkArgument(unit.toNanos(interval) > 0, "refill interval must be strictly positive");
+        this.charges = charges;
+        this.interval = unit.toNanos(interval);
+        this.burst = Math.multiplyExact(this.interval, charges);
+        this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+        this.fullAt = 0;
+    }
+
+    private long nanoTime() {
+        return this.timeSource.currentTimeMillis() * NANOS_PER_MILLI;
+    }
+
+    /**
+     * Consumes a number of charges, if available.
+     *
+     * @param permits the number of charges to consume
+     * @return true if the charges were consumed
+     */
+    public boolean tryAcquire(int permits) {
+        Preconditions.checkArgument(permits > 0, "permits must be strictly positive");
+        if (permits > this.charges) {
+            return false;
+        }
+        long cost = this.interval * permits;
+        long now = nanoTime();
+        while (true) {
+            long fullAt = this.fullAt;
+            if (fullAt == RETIRED) {
+                return false;
+            }
+            long next = Math.max(fullAt, now) + cost;
+            if (next - now > this.burst) {
+                return false;
+            }
+            if (FULL_AT.compareAndSet(this, fullAt, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Consumes a charge, if available.
+     *
+     * @return true if a charge was consumed
+     */
+    public boolean tryAcquire() {
+        return tryAcquire(1);
+    }
+
+    /**
+     * @return the number of charges currently available
+     */
+    public int getAvailableCharges() {
+        long missing = this.fullAt - nanoTime();
+        if (missing <= 0) {
+            return this.charges;
+        }
+        // the last tested time may have been set in the future
+        return (int) Math.max(0, Math.min((this.burst - missing) / this.interval, this.charges));
+    }
+
+    /**
+     * @return the maximum number of charges
+     */
+    public int getCharges() {
+        return this.charges;
+    }
+
+    /**
+     * @return the time in milliseconds until every charge is back
+     */
+    public long getMillisUntilFull() {
+        long missing = this.fullAt - nanoTime();
+        return missing <= 0 ? 0L : Math.ceilDiv(missing, NANOS_PER_MILLI);
+    }
+
+    @Override
+    public boolean test() {
+        return tryAcquire(1);
+    }
+
+    @Override
+    public boolean testSilently() {
+        return this.fullAt - nanoTime() <= this.burst - this.interval;
+    }
+
+    @Override
+    public long remainingMillis() {
+        long remaining = this.fullAt - (this.burst - this.interval) - nanoTime();
+        return remaining <= 0 ? 0L : Math.ceilDiv(remaining, NANOS_PER_MILLI);
+    }
+
+    /**
+     * Reduces the time until every charge is back by a percentage.
+     *
+     * @param p the percentage by which to reduce the remaining time, in the range from 0 to 1
+     */
+    @Override
+    public void reduceRemainingCooldown(@Range(from = 0, to = 1) float p) {
+        Preconditions.checkArgument(p >= 0 && p <= 1, "percentage must be between 0 and 1");
+        update((fullAt, now) -> fullAt - (long) ((fullAt - now) * (double) p));
+    }
+
+    /**
+     * Reduces the time until every charge is back by a percentage of the
+     * refill interval of a single charge.
+     *
+     * @param p the percentage of the refill interval, in the range from 0 to 1
+     */
+    @Override
+    public void reduceInitialCooldown(@Range(from = 0, to = 1) float p) {
+        Preconditions.checkArgument(p >= 0 && p <= 1, "percentage must be between 0 and 1");
+        long reductionNanos = (long) (this.interval * (double) p);
+        update((fullAt, now) -> fullAt - reductionNanos);
+    }
+
+    /**
+     * Reduces the time until every charge is back by a flat amount.
+     *
+     * @param d the amount in seconds by which to reduce the remaining time
+     */
+    @Override
+    public void reduceFlat(@Range(from = 0, to = Long.MAX_VALUE) float d) {
+        Preconditions.checkArgument(d >= 0, "Reduction amount must be non-negative");
+        long reductionNanos = (long) (d * 1e9);
+        update((fullAt, now) -> fullAt - reductionNanos);
+    }
+
+    /**
+     * Atomically updates the time at which every charge is back, unless they already are.
+     */
+    private void update(LongBinaryOperator function) {
+        long now = nanoTime();
+        while (true) {
+            long fullAt = this.fullAt;
+            if (fullAt <= now) {
+                // every charge is back, there's nothing to reduce
+                return;
+            }
+            long newFullAt = Math.max(now, function.applyAsLong(fullAt, now));
+            if (FULL_AT.compareAndSet(this, fullAt, newFullAt)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Gets the last tested time, as seen by a single charge cooldown: the
+     * time at which every charge is back, minus the refill time of all of them.
+     */
+    @Override
+    public OptionalLong getLastTested() {
+        long fullAt = this.fullAt;
+        return fullAt == 0 || fullAt == RETIRED ? OptionalLong.empty() : OptionalLong.of(Math.max(Math.floorDiv(fullAt - this.burst, NANOS_PER_MILLI), 0));
+    }
+
+    /**
+     * Sets the last tested time, as seen by a single charge cooldown, so
+     * that every charge is back after the refill time of all of them.
+     */
+    @Override
+    public void setLastTested(long time) {
+        long newFullAt = time <= 0 ? 0 : time * NANOS_PER_MILLI + this.burst;
+        while (true) {
+            long fullAt = this.fullAt;
+            if (fullAt == RETIRED || FULL_AT.compareAndSet(this, fullAt, newFullAt)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Retires this cooldown if every charge is back, so it can be removed
+     * from a map without losing a charge acquired concurrently.
+     *
+     * @return true if the cooldown was retired
+     */
+    boolean retire() {
+        long now = nanoTime();
+        while (true) {
+            long fullAt = this.fullAt;
+            if (fullAt == RETIRED || fullAt > now) {
+                return false;
+            }
+            if (FULL_AT.compareAndSet(this, fullAt, RETIRED)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * @return true if this cooldown was removed from its map, see {@link #retire()}
+     */
+    boolean isRetired() {
+        return this.fullAt == RETIRED;
+    }
+
+    /**
+     * @return the refill interval of a single charge in milliseconds
+     */
+    @Override
+    public long getTimeout() {
+        return TimeUnit.NANOSECONDS.toMillis(this.interval);
+    }
+
+    @Override
+    public TimeSource getTimeSource() {
+        return this.timeSource;
+    }
+
+    @Override
+    public ChargedCooldown copy() {
+        return new ChargedCooldown(this.charges, this.interval, TimeUnit.NANOSECONDS, this.timeSource);
+    }
+
+    /**
+     * Gets a cooldown with the same charges and the same state, reading
+     * the current time from the given time source.
+     *
+     * @param timeSource the time source
+     * @return this cooldown if it already uses the time source, a bound copy otherwise
+     */
+    ChargedCooldown withTimeSource(TimeSource timeSource) {
+        if (timeSource == this.timeSource) {
+            return this;
+        }
+        ChargedCooldown bound = new ChargedCooldown(this.charges, this.interval, TimeUnit.NANOSECONDS, timeSource);
+        bound.fullAt = this.fullAt;
+        return bound;
+    }
+}
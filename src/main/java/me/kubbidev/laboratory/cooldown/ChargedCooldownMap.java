@@ -0,0 +1,150 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A thread safe, self-populating map of {@link ChargedCooldown}s.
+ * <p>
+ * Acquiring charges of a key without cooldown associates it with a copy
+ * of the base cooldown, so every key starts with all of its charges.
+ *
+ * @param <T> the type
+ */
+public final class ChargedCooldownMap<T> implements CooldownMap<T> {
+    private final Map<T, ChargedCooldown> cache = new ConcurrentHashMap<>();
+    private final Map<T, Cooldown> view = Collections.unmodifiableMap(this.cache);
+
+    private final ChargedCooldown base;
+
+    ChargedCooldownMap(ChargedCooldown base) {
+        this.base = Objects.requireNonNull(base, "base");
+    }
+
+    /**
+     * @return the cooldown new keys are associated with a copy of
+     */
+    public ChargedCooldown getBase() {
+        return this.base;
+    }
+
+    @Override
+    public Optional<Cooldown> get(T key) {
+        Objects.requireNonNull(key, "key");
+        return Optional.ofNullable(this.cache.get(key));
+    }
+
+    /**
+     * Gets the cooldown associated with the given key, creating it if absent.
+     * <p>
+     * Once removed by {@link #removeInactive()}, the returned cooldown
+     * rejects every acquisition, so callers holding onto it should acquire
+     * through {@link #tryAcquire(Object, int)} instead.
+     *
+     * @param key the key
+     * @return the cooldown
+     */
+    public ChargedCooldown getOrCreate(T key) {
+        Objects.requireNonNull(key, "key");
+        ChargedCooldown cooldown = this.cache.get(key);
+        if (cooldown == null) {
+            cooldown = this.cache.computeIfAbsent(key, k -> this.base.copy());
+        }
+        return cooldown;
+    }
+
+    /**
+     * Associates a charged cooldown with the given key.
+     *
+     * @throws IllegalArgumentException if the cooldown is not a {@link ChargedCooldown}
+     */
+    @Override
+    public void put(T key, Cooldown cooldown) {
+        Objects.requireNonNull(key, "key");
+        Preconditions.checkArgument(cooldown instanceof ChargedCooldown, "cooldown must be a charged cooldown");
+        this.cache.put(key, (ChargedCooldown) cooldown);
+    }
+
+    /**
+     * Returns an unmodifiable view of the cooldowns of this map.
+     *
+     * @return a map view
+     */
+    @Override
+    public Map<T, Cooldown> getAll() {
+        return this.view;
+    }
+
+    /**
+     * @see ChargedCooldown#tryAcquire(int)
+     */
+    public boolean tryAcquire(T key, int permits) {
+        while (true) {
+            ChargedCooldown cooldown = getOrCreate(key);
+            if (cooldown.tryAcquire(permits)) {
+                return true;
+            }
+            if (!cooldown.isRetired()) {
+                return false;
+            }
+            // removed by removeInactive in the meantime, acquire from the cooldown replacing it
+            this.cache.remove(key, cooldown);
+        }
+    }
+
+    @Override
+    public boolean test(T key) {
+        return tryAcquire(key, 1);
+    }
+
+    /**
+     * @see ChargedCooldown#getAvailableCharges()
+     */
+    public int getAvailableCharges(T key) {
+        Objects.requireNonNull(key, "key");
+        ChargedCooldown cooldown = this.cache.get(key);
+        return cooldown == null ? this.base.getCharges() : cooldown.getAvailableCharges();
+    }
+
+    /**
+     * Removes the cooldown associated with the given key.
+     *
+     * @param key the key
+     * @return true if a cooldown was removed
+     */
+    public boolean remove(T key) {
+        Objects.requireNonNull(key, "key");
+        return this.cache.remove(key) != null;
+    }
+
+    /**
+     * Removes every cooldown having all of its charges, which behaves
+     * like an absent one.
+     *
+     * @return the number of removed cooldowns
+     */
+    public int removeInactive() {
+        int removed = 0;
+        for (Map.Entry<T, ChargedCooldown> entry : this.cache.entrySet()) {
+            ChargedCooldown cooldown = entry.getValue();
+            // retiring is atomic with acquisitions, so no charge acquired from the removed cooldown is lost
+            if (cooldown.retire()) {
+                this.cache.remove(entry.getKey(), cooldown);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * @return the number of cooldowns in this map
+     */
+    public int size() {
+        return this.cache.size();
+    }
+}
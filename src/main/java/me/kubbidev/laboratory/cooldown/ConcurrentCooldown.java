@@ -0,0 +1,127 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Range;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * A cooldown which can be shared between threads.
+ * <p>
+ * {@link #test()} checks and resets the cooldown in a single atomic
+ * operation, so among threads testing it concurrently, at most one
+ * succeeds. Reductions are atomic as well.
+ */
+class ConcurrentCooldown implements Cooldown {
+    private static final VarHandle LAST_TESTED;
+
+    static {
+        try {
+            LAST_TESTED = MethodHandles.lookup().findVarHandle(ConcurrentCooldown.class, "lastTested", long.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    // when the last test occurred.
+    private volatile long lastTested;
+
+    // the cooldown duration in millis
+    private final long timeout;
+
+    private final TimeSource timeSource;
+
+    ConcurrentCooldown(long amount, TimeUnit unit, TimeSource timeSource) {
+        this.timeout = unit.toMillis(amount);
+        this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+        this.lastTested = 0;
+    }
+
+    @Override
+    public boolean test() {
+        while (true) {
+            long lastTested = this.lastTested;
+            long now = this.timeSource.currentTimeMillis();
+            if (now - lastTested <= this.timeout) {
+                return false;
+            }
+            if (LAST_TESTED.compareAndSet(this, lastTested, now)) {
+                return true;
+            }
+        }
+    }
+
+    @Override
+    public void reduceRemainingCooldown(@Range(from = 0, to = 1) float p) {
+        Preconditions.checkArgument(p >= 0 && p <= 1, "percentage must be between 0 and 1");
+        update(lastTested -> {
+            long elapsed = this.timeSource.currentTimeMillis() - lastTested;
+            long remaining = elapsed > this.timeout ? 0L : this.timeout - elapsed;
+            return lastTested - (long) (remaining * p);
+        });
+    }
+
+    @Override
+    public void reduceInitialCooldown(@Range(from = 0, to = 1) float p) {
+        Preconditions.checkArgument(p >= 0 && p <= 1, "percentage must be between 0 and 1");
+        long reductionMillis = (long) (this.timeout * p);
+        update(lastTested -> lastTested - reductionMillis);
+    }
+
+    @Override
+    public void reduceFlat(@Range(from = 0, to = Long.MAX_VALUE) float d) {
+        Preconditions.checkArgument(d >= 0, "Reduction amount must be non-negative");
+        long reductionMillis = (long) (d * 1000L);
+        update(lastTested -> lastTested - reductionMillis);
+    }
+
+    /**
+     * Atomically updates the last tested time, unless it is not set.
+     */
+    private void update(LongUnaryOperator function) {
+        while (true) {
+            long lastTested = this.lastTested;
+            if (lastTested == 0) {
+                // if lastTested is not set, there's nothing to reduce
+                return;
+            }
+
+            // ensuring it does not go below 0
+            long newLastTested = Math.max(0, function.applyAsLong(lastTested));
+            if (LAST_TESTED.compareAndSet(this, lastTested, newLastTested)) {
+                return;
+            }
+        }
+    }
+
+    @Override
+    public OptionalLong getLastTested() {
+        long lastTested = this.lastTested;
+        return lastTested == 0 ? OptionalLong.empty() : OptionalLong.of(lastTested);
+    }
+
+    @Override
+    public void setLastTested(long time) {
+        this.lastTested = Math.max(time, 0);
+    }
+
+    @Override
+    public long getTimeout() {
+        return this.timeout;
+    }
+
+    @Override
+    public TimeSource getTimeSource() {
+        return this.timeSource;
+    }
+
+    @Override
+    public Cooldown copy() {
+        return new ConcurrentCooldown(this.timeout, TimeUnit.MILLISECONDS, this.timeSource);
+    }
+}
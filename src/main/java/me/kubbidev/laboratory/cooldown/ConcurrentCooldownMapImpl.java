@@ -0,0 +1,76 @@
+package me.kubbidev.laboratory.cooldown;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+class ConcurrentCooldownMapImpl<T> implements CooldownMap<T> {
+    private final Map<T, Cooldown> cache = new ConcurrentHashMap<>();
+    private final Map<T, Cooldown> view = Collections.unmodifiableMap(this.cache);
+
+    // the cooldown copied for absent keys, or null if absent keys are not populated
+    private final @Nullable Cooldown base;
+
+    ConcurrentCooldownMapImpl(@Nullable Cooldown base) {
+        this.base = base == null ? null : toConcurrent(base);
+    }
+
+    @Override
+    public Optional<Cooldown> get(T key) {
+        Objects.requireNonNull(key, "key");
+        return Optional.ofNullable(this.cache.get(key));
+    }
+
+    /**
+     * Associates a cooldown with the given key.
+     * <p>
+     * Cooldowns which were not created by {@link Cooldown#concurrent(long, TimeUnit)}
+     * are replaced by an equivalent concurrent cooldown. {@link ChargedCooldown}s
+     * are thread safe, and kept as is.
+     */
+    @Override
+    public void put(T key, Cooldown cooldown) {
+        Objects.requireNonNull(key, "key");
+        this.cache.put(key, toConcurrent(cooldown));
+    }
+
+    /**
+     * Returns an unmodifiable view of the cooldowns of this map.
+     * <p>
+     * Cooldowns are only added through {@link #put(Object, Cooldown)}, which
+     * converts them, so every cooldown of the map is a concurrent one.
+     *
+     * @return a map view
+     */
+    @Override
+    public Map<T, Cooldown> getAll() {
+        return this.view;
+    }
+
+    @Override
+    public boolean test(T key) {
+        Objects.requireNonNull(key, "key");
+        Cooldown cooldown = this.cache.get(key);
+        if (cooldown == null) {
+            if (this.base == null) {
+                return true;
+            }
+            cooldown = this.cache.computeIfAbsent(key, k -> this.base.copy());
+        }
+        return cooldown.test();
+    }
+
+    private static Cooldown toConcurrent(Cooldown cooldown) {
+        if (cooldown instanceof ConcurrentCooldown || cooldown instanceof ChargedCooldown) {
+            return cooldown;
+        }
+        Cooldown concurrent = new ConcurrentCooldown(cooldown.getTimeout(), TimeUnit.MILLISECONDS, cooldown.getTimeSource());
+        cooldown.getLastTested().ifPresent(concurrent::setLastTested);
+        return concurrent;
+    }
+}
@@ -19,7 +19,102 @@ public interface Cooldown {
      * @return a new cooldown
      */
     static Cooldown of(long amount, TimeUnit unit) {
-        return new CooldownImpl(amount, unit);
+        return of(amount, unit, TimeSource.system());
+    }
+
+    /**
+     * Creates a cooldown lasting a specified amount of time, measured with the given time source
+     *
+     * @param amount     the amount of time
+     * @param unit       the unit of time
+     * @param timeSource the source of the current time
+     * @return a new cooldown
+     */
+    static Cooldown of(long amount, TimeUnit unit, TimeSource timeSource) {
+        return new CooldownImpl(amount, unit, timeSource);
+    }
+
+    /**
+     * Creates a cooldown lasting a specified amount of time, which can be
+     * shared between threads.
+     *
+     * <p>{@link #test()} checks and resets the returned cooldown atomically:
+     * among threads testing it concurrently, at most one succeeds.</p>
+     *
+     * @param amount the amount of time
+     * @param unit   the unit of time
+     * @return a new thread safe cooldown
+     */
+    static Cooldown concurrent(long amount, TimeUnit unit) {
+        return concurrent(amount, unit, TimeSource.system());
+    }
+
+    /**
+     * Creates a cooldown lasting a specified amount of time, measured with the
+     * given time source, which can be shared between threads.
+     *
+     * @param amount     the amount of time
+     * @param unit       the unit of time
+     * @param timeSource the source of the current time
+     * @return a new thread safe cooldown
+     * @see #concurrent(long, TimeUnit)
+     */
+    static Cooldown concurrent(long amount, TimeUnit unit, TimeSource timeSource) {
+        return new ConcurrentCooldown(amount, unit, timeSource);
+    }
+
+    /**
+     * Creates a cooldown holding several charges, each refilled after the
+     * given amount of time, which can be shared between threads.
+     *
+     * @param charges the number of charges
+     * @param amount  the refill time of a single charge
+     * @param unit    the unit of time
+     * @return a new charged cooldown
+     */
+    static ChargedCooldown charges(int charges, long amount, TimeUnit unit) {
+        return charges(charges, amount, unit, TimeSource.system());
+    }
+
+    /**
+     * Creates a cooldown holding several charges, each refilled after the
+     * given amount of time, measured with the given time source.
+     *
+     * @param charges    the number of charges
+     * @param amount     the refill time of a single charge
+     * @param unit       the unit of time
+     * @param timeSource the source of the current time
+     * @return a new charged cooldown
+     */
+    static ChargedCooldown charges(int charges, long amount, TimeUnit unit, TimeSource timeSource) {
+        return new ChargedCooldown(charges, amount, unit, timeSource);
+    }
+
+    /**
+     * Creates a token bucket, holding up to the given number of tokens and
+     * refilled at the given rate, which can be shared between threads.
+     *
+     * @param capacity         the maximum number of tokens
+     * @param permitsPerSecond the number of tokens refilled every second
+     * @return a new token bucket
+     */
+    static ChargedCooldown tokenBucket(int capacity, double permitsPerSecond) {
+        return tokenBucket(capacity, permitsPerSecond, TimeSource.system());
+    }
+
+    /**
+     * Creates a token bucket, holding up to the given number of tokens and
+     * refilled at the given rate, measured with the given time source.
+     *
+     * @param capacity         the maximum number of tokens
+     * @param permitsPerSecond the number of tokens refilled every second
+     * @param timeSource       the source of the current time
+     * @return a new token bucket
+     */
+    static ChargedCooldown tokenBucket(int capacity, double permitsPerSecond, TimeSource timeSource) {
+        Preconditions.checkArgument(permitsPerSecond > 0, "rate must be strictly positive");
+        long interval = (long) (TimeUnit.SECONDS.toNanos(1) / permitsPerSecond);
+        return new ChargedCooldown(capacity, interval, TimeUnit.NANOSECONDS, timeSource);
     }
 
     /**
@@ -30,11 +125,13 @@ public interface Cooldown {
      * @return true if the cooldown is not active
      */
     default boolean test() {
-        if (!testSilently()) {
+        // read the time once, so the test and the reset agree
+        long now = getTimeSource().currentTimeMillis();
+        if (now - getLastTested().orElse(0) <= getTimeout()) {
             return false;
         }
 
-        reset();
+        setLastTested(now);
         return true;
     }
 
@@ -53,14 +150,14 @@ public interface Cooldown {
      * @return the elapsed time
      */
     default long elapsed() {
-        return System.currentTimeMillis() - getLastTested().orElse(0);
+        return getTimeSource().currentTimeMillis() - getLastTested().orElse(0);
     }
 
     /**
      * Resets the cooldown
      */
     default void reset() {
-        setLastTested(System.currentTimeMillis());
+        setLastTested(getTimeSource().currentTimeMillis());
     }
 
     /**
@@ -178,6 +275,27 @@ public interface Cooldown {
      */
     long getTimeout();
 
+    /**
+     * Runs the given callback once this cooldown becomes inactive.
+     *
+     * @param notifier the notifier
+     * @param callback the callback
+     * @return the subscription
+     * @see CooldownNotifier#subscribe(Cooldown, Runnable)
+     */
+    default CooldownNotifier.Subscription onReady(CooldownNotifier notifier, Runnable callback) {
+        return notifier.subscribe(this, callback);
+    }
+
+    /**
+     * Gets the source of the current time used by this cooldown
+     *
+     * @return the time source
+     */
+    default TimeSource getTimeSource() {
+        return TimeSource.system();
+    }
+
     /**
      * Copies the properties of this cooldown to a new instance
      *
@@ -0,0 +1,126 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A fixed set of named cooldowns held together by a single key, such as
+ * the skills of a player.
+ * <p>
+ * Each cooldown of the group has an index, in the order they were added,
+ * which can be resolved once with {@link #indexOf(String)} and then used
+ * to address the cooldown without any lookup.
+ *
+ * @see GroupedCooldownMap
+ */
+public final class CooldownGroup {
+
+    /**
+     * Creates a new builder.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final ImmutableList<String> names;
+    private final ImmutableMap<String, Integer> indices;
+
+    // the cooldown durations in millis, by index
+    private final long[] timeouts;
+
+    private CooldownGroup(Builder builder) {
+        this.names = ImmutableList.copyOf(builder.timeouts.keySet());
+        this.indices = indices(this.names);
+        this.timeouts = builder.timeouts.values().stream().mapToLong(Long::longValue).toArray();
+    }
+
+    private static ImmutableMap<String, Integer> indices(List<String> names) {
+        ImmutableMap.Builder<String, Integer> indices = ImmutableMap.builder();
+        for (int i = 0; i < names.size(); i++) {
+            indices.put(names.get(i), i);
+        }
+        return indices.build();
+    }
+
+    /**
+     * @return the number of cooldowns in this group
+     */
+    public int size() {
+        return this.timeouts.length;
+    }
+
+    /**
+     * Gets the index of the cooldown with the given name.
+     *
+     * @param name the name
+     * @return the index
+     * @throws IllegalArgumentException if the group has no cooldown with this name
+     */
+    public int indexOf(String name) {
+        Integer index = this.indices.get(Objects.requireNonNull(name, "name"));
+        Preconditions.checkArgument(index != null, "unknown cooldown: %s", name);
+        return index;
+    }
+
+    /**
+     * @param index the index of a cooldown
+     * @return the name of the cooldown
+     */
+    public String getName(int index) {
+        return this.names.get(index);
+    }
+
+    /**
+     * @param index the index of a cooldown
+     * @return the cooldown duration in milliseconds
+     */
+    public long getTimeout(int index) {
+        return this.timeouts[index];
+    }
+
+    /**
+     * @return the names of the cooldowns, by index
+     */
+    public List<String> getNames() {
+        return this.names;
+    }
+
+    long[] timeouts() {
+        return this.timeouts;
+    }
+
+    public static final class Builder {
+        private final Map<String, Long> timeouts = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * Adds a cooldown to the group, at the next index.
+         *
+         * @param name   the name of the cooldown
+         * @param amount the amount of time
+         * @param unit   the unit of time
+         */
+        public Builder add(String name, long amount, TimeUnit unit) {
+            Objects.requireNonNull(name, "name");
+            Preconditions.checkArgument(amount >= 0, "timeout cannot be negative");
+            Preconditions.checkArgument(!this.timeouts.containsKey(name), "duplicate cooldown: %s", name);
+            this.timeouts.put(name, unit.toMillis(amount));
+            return this;
+        }
+
+        public CooldownGroup build() {
+            return new CooldownGroup(this);
+        }
+    }
+}
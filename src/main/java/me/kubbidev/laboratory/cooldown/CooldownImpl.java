@@ -1,5 +1,6 @@
 package me.kubbidev.laboratory.cooldown;
 
+import java.util.Objects;
 import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
 
@@ -11,8 +12,11 @@ class CooldownImpl implements Cooldown {
     // the cooldown duration in millis
     private final long timeout;
 
-    CooldownImpl(long amount, TimeUnit unit) {
+    private final TimeSource timeSource;
+
+    CooldownImpl(long amount, TimeUnit unit, TimeSource timeSource) {
         this.timeout = unit.toMillis(amount);
+        this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
         this.lastTested = 0;
     }
 
@@ -31,8 +35,13 @@ class CooldownImpl implements Cooldown {
         return this.timeout;
     }
 
+    @Override
+    public TimeSource getTimeSource() {
+        return this.timeSource;
+    }
+
     @Override
     public Cooldown copy() {
-        return new CooldownImpl(this.timeout, TimeUnit.MILLISECONDS);
+        return new CooldownImpl(this.timeout, TimeUnit.MILLISECONDS, this.timeSource);
     }
 }
\ No newline at end of file
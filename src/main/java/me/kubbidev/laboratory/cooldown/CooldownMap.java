@@ -1,9 +1,13 @@
 package me.kubbidev.laboratory.cooldown;
 
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
 import java.util.OptionalLong;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
 
 /**
  * A self-populating map of cooldown instances
@@ -18,7 +22,144 @@ public interface CooldownMap<T> {
      * @return a new collection
      */
     static <T> CooldownMap<T> create() {
-        return new CooldownMapImpl<>();
+        return new CooldownMapImpl<>(null);
+    }
+
+    /**
+     * Creates a new collection measuring time with the given time source
+     *
+     * <p>Cooldowns put in this collection using another time source are
+     * replaced by an equivalent cooldown using the given one.</p>
+     *
+     * @param timeSource the source of the current time
+     * @return a new collection
+     */
+    static <T> CooldownMap<T> create(TimeSource timeSource) {
+        Objects.requireNonNull(timeSource, "timeSource");
+        return new CooldownMapImpl<>(timeSource);
+    }
+
+    /**
+     * Creates a new thread safe collection
+     *
+     * <p>Cooldowns put in this collection are replaced by equivalent
+     * {@link Cooldown#concurrent(long, TimeUnit) concurrent cooldowns}, so
+     * {@link #test(Object)} checks and resets them atomically. The map stores
+     * a converted copy: the cooldown given to {@link #put(Object, Cooldown)}
+     * is not updated by tests of the map, the one returned by
+     * {@link #get(Object)} is. {@link #getAll()} returns an unmodifiable
+     * view, so the conversion cannot be bypassed. {@link ChargedCooldown}s
+     * are already thread safe, and stored as is.</p>
+     *
+     * @return a new thread safe collection
+     */
+    static <T> CooldownMap<T> concurrent() {
+        return new ConcurrentCooldownMapImpl<>(null);
+    }
+
+    /**
+     * Creates a new thread safe collection, populated on demand
+     *
+     * <p>Testing a key with no cooldown associates it with a new cooldown
+     * having the timeout of the given base cooldown, so the first test of
+     * a key succeeds only once. A {@link ChargedCooldown} base gives new
+     * keys its number of charges.</p>
+     *
+     * <p>Cooldowns put in this collection are converted as with {@link #concurrent()}.</p>
+     *
+     * @param base the cooldown to base new cooldowns on
+     * @return a new thread safe collection
+     */
+    static <T> CooldownMap<T> concurrent(Cooldown base) {
+        Objects.requireNonNull(base, "base");
+        return new ConcurrentCooldownMapImpl<>(base);
+    }
+
+    /**
+     * Creates a new self-populating collection keyed by primitive longs,
+     * storing cooldowns without any per-entry object
+     *
+     * @param amount the amount of time of new cooldowns
+     * @param unit   the unit of time
+     * @return a new collection
+     */
+    static LongCooldownMap longKeys(long amount, TimeUnit unit) {
+        return new LongCooldownMap(amount, unit);
+    }
+
+    /**
+     * Creates a new self-populating collection keyed by primitive longs,
+     * measuring time with the given time source
+     *
+     * @param amount     the amount of time of new cooldowns
+     * @param unit       the unit of time
+     * @param timeSource the source of the current time
+     * @return a new collection
+     */
+    static LongCooldownMap longKeys(long amount, TimeUnit unit, TimeSource timeSource) {
+        return new LongCooldownMap(amount, unit, timeSource);
+    }
+
+    /**
+     * Creates a new self-populating collection keyed by unique ids,
+     * storing cooldowns without any per-entry object
+     *
+     * @param amount the amount of time of new cooldowns
+     * @param unit   the unit of time
+     * @return a new collection
+     */
+    static UuidCooldownMap uuidKeys(long amount, TimeUnit unit) {
+        return new UuidCooldownMap(amount, unit);
+    }
+
+    /**
+     * Creates a new self-populating collection keyed by unique ids,
+     * measuring time with the given time source
+     *
+     * @param amount     the amount of time of new cooldowns
+     * @param unit       the unit of time
+     * @param timeSource the source of the current time
+     * @return a new collection
+     */
+    static UuidCooldownMap uuidKeys(long amount, TimeUnit unit, TimeSource timeSource) {
+        return new UuidCooldownMap(amount, unit, timeSource);
+    }
+
+    /**
+     * Creates a new thread safe, self-populating collection of charged cooldowns
+     *
+     * <p>Acquiring charges of a key with no cooldown associates it with a
+     * copy of the given base cooldown.</p>
+     *
+     * @param base the cooldown to copy for new keys
+     * @return a new thread safe collection
+     * @see Cooldown#charges(int, long, TimeUnit)
+     * @see Cooldown#tokenBucket(int, double)
+     */
+    static <T> ChargedCooldownMap<T> charged(ChargedCooldown base) {
+        return new ChargedCooldownMap<>(base);
+    }
+
+    /**
+     * Creates a new self-populating collection holding every cooldown of
+     * the given group for each key, in a single record
+     *
+     * @param group the cooldowns held by each key
+     * @return a new collection
+     */
+    static <T> GroupedCooldownMap<T> grouped(CooldownGroup group) {
+        return new GroupedCooldownMap<>(group);
+    }
+
+    /**
+     * Creates a builder of thread safe collections evicting cooldowns
+     * which stayed inactive for longer than a grace period
+     *
+     * @param scheduler the scheduler running the eviction task
+     * @return a new builder
+     */
+    static <T> ExpiringCooldownMap.Builder<T> expiring(SchedulerAdapter scheduler) {
+        return ExpiringCooldownMap.builder(scheduler);
     }
 
     /**
@@ -48,7 +189,7 @@ public interface CooldownMap<T> {
     }
 
     default boolean testSilently(T key) {
-        return get(key).map(Cooldown::test).orElse(true);
+        return get(key).map(Cooldown::testSilently).orElse(true);
     }
 
     default long elapsed(T key) {
@@ -75,4 +216,18 @@ public interface CooldownMap<T> {
         get(key).ifPresent(cooldown -> cooldown.setLastTested(time));
     }
 
+    /**
+     * Runs the given callback once the cooldown associated with the given
+     * key becomes inactive.
+     *
+     * @param key      the key
+     * @param notifier the notifier
+     * @param callback the callback, given the key
+     * @return the subscription
+     * @see CooldownNotifier#subscribe(CooldownMap, Object, java.util.function.Consumer)
+     */
+    default CooldownNotifier.Subscription onReady(T key, CooldownNotifier notifier, Consumer<? super T> callback) {
+        return notifier.subscribe(this, key, callback);
+    }
+
 }
\ No newline at end of file
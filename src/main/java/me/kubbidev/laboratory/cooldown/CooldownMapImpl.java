@@ -1,13 +1,23 @@
 package me.kubbidev.laboratory.cooldown;
 
+import org.jetbrains.annotations.Nullable;
+
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
 
 class CooldownMapImpl<T> implements CooldownMap<T> {
     private final Map<T, Cooldown> cache = new HashMap<>();
 
+    // the time source cooldowns are bound to, or null to keep the one of each cooldown
+    private final @Nullable TimeSource timeSource;
+
+    CooldownMapImpl(@Nullable TimeSource timeSource) {
+        this.timeSource = timeSource;
+    }
+
     @Override
     public Optional<Cooldown> get(T key) {
         Objects.requireNonNull(key, "key");
@@ -19,7 +29,7 @@ class CooldownMapImpl<T> implements CooldownMap<T> {
     @Override
     public void put(T key, Cooldown cooldown) {
         Objects.requireNonNull(key, "key");
-        this.cache.put(key, cooldown);
+        this.cache.put(key, bind(cooldown));
     }
 
     @Override
@@ -27,6 +37,19 @@ class CooldownMapImpl<T> implements CooldownMap<T> {
         return this.cache;
     }
 
+    private Cooldown bind(Cooldown cooldown) {
+        if (this.timeSource == null || cooldown.getTimeSource() == this.timeSource) {
+            return cooldown;
+        }
+        if (cooldown instanceof ChargedCooldown charged) {
+            // keep the charges, which a single charge cooldown cannot hold
+            return charged.withTimeSource(this.timeSource);
+        }
+        Cooldown bound = Cooldown.of(cooldown.getTimeout(), TimeUnit.MILLISECONDS, this.timeSource);
+        cooldown.getLastTested().ifPresent(bound::setLastTested);
+        return bound;
+    }
+
     protected T sanitizeIdentifier(T id) {
         return id;
     }
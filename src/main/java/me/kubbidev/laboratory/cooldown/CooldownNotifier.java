@@ -0,0 +1,285 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+import me.kubbidev.laboratory.scheduler.SchedulerTask;
+import me.kubbidev.laboratory.scheduler.TimingWheel;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Notifies subscribers when cooldowns become inactive, instead of having
+ * them poll the remaining time.
+ * <p>
+ * Every subscription is scheduled in a single {@link TimingWheel} at the
+ * time its cooldown would become inactive, and the wheel is advanced by
+ * one repeating task of the given {@link SchedulerAdapter}. When the
+ * deadline comes up, the cooldown is checked again: if it has been reset
+ * since, the subscription is scheduled again, otherwise the callback is
+ * run on the {@link SchedulerAdapter#async() async executor}.
+ * <p>
+ * Callbacks run at most one {@link Builder#resolution(long, TimeUnit) resolution}
+ * after the cooldown became inactive. Reducing a cooldown does not bring
+ * its deadline forward on its own, {@link Subscription#refresh()} should
+ * be called afterwards.
+ * <p>
+ * The notifier should be {@link #close() closed} once not needed anymore,
+ * pending subscriptions are then never notified.
+ */
+@Slf4j
+public final class CooldownNotifier implements AutoCloseable {
+
+    /**
+     * Creates a new notifier with the default resolution, measuring
+     * time with the system time source.
+     *
+     * @param scheduler the scheduler advancing the notifier and running callbacks
+     * @return a new notifier
+     */
+    public static CooldownNotifier create(SchedulerAdapter scheduler) {
+        return builder(scheduler).build();
+    }
+
+    /**
+     * Creates a new builder.
+     *
+     * @param scheduler the scheduler advancing the notifier and running callbacks
+     * @return a new builder
+     */
+    public static Builder builder(SchedulerAdapter scheduler) {
+        return new Builder(scheduler);
+    }
+
+    private final SchedulerAdapter scheduler;
+    private final TimeSource timeSource;
+
+    // guarded by itself, as well as the state of every subscription
+    private final TimingWheel<Subscription> wheel;
+    private final SchedulerTask task;
+
+    // guarded by itself, runs of the advancing task may overlap on some schedulers
+    private final List<Subscription> due = new ArrayList<>();
+    private final Consumer<Subscription> collectDue = this.due::add;
+
+    private CooldownNotifier(Builder builder) {
+        this.scheduler = builder.scheduler;
+        this.timeSource = builder.timeSource;
+        this.wheel = new TimingWheel<>(builder.resolution, this.timeSource.currentTimeMillis());
+        this.task = this.scheduler.asyncRepeating(this::advance, builder.resolution, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Runs the given callback once the cooldown becomes inactive, or right
+     * away if it is not active.
+     *
+     * @param cooldown the cooldown
+     * @param callback the callback
+     * @return the subscription
+     */
+    public Subscription subscribe(Cooldown cooldown, Runnable callback) {
+        Objects.requireNonNull(cooldown, "cooldown");
+        Objects.requireNonNull(callback, "callback");
+        return register(new Subscription(this, cooldown::testSilently, cooldown::remainingMillis, callback));
+    }
+
+    /**
+     * Runs the given callback once the cooldown associated with the given
+     * key becomes inactive, or right away if it is not active.
+     * <p>
+     * The cooldown is looked up again whenever it is checked, so replacing
+     * or removing it is taken into account.
+     *
+     * @param map      the map holding the cooldown
+     * @param key      the key
+     * @param callback the callback, given the key
+     * @return the subscription
+     */
+    public <T> Subscription subscribe(CooldownMap<T> map, T key, Consumer<? super T> callback) {
+        Objects.requireNonNull(map, "map");
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(callback, "callback");
+        return register(new Subscription(this, () -> map.testSilently(key), () -> map.remainingMillis(key), () -> callback.accept(key)));
+    }
+
+    /**
+     * @return the number of subscriptions waiting for their cooldown
+     */
+    public int pending() {
+        synchronized (this.wheel) {
+            return this.wheel.size();
+        }
+    }
+
+    /**
+     * Stops notifying subscribers.
+     */
+    @Override
+    public void close() {
+        this.task.cancel();
+    }
+
+    private Subscription register(Subscription subscription) {
+        check(subscription);
+        return subscription;
+    }
+
+    /**
+     * Advances the wheel, checking the subscriptions whose deadline came up.
+     */
+    private void advance() {
+        synchronized (this.due) {
+            long now = this.timeSource.currentTimeMillis();
+            synchronized (this.wheel) {
+                this.wheel.advance(now, this.collectDue);
+            }
+            try {
+                for (Subscription subscription : this.due) {
+                    check(subscription);
+                }
+            } finally {
+                this.due.clear();
+            }
+        }
+    }
+
+    /**
+     * Notifies the subscription if its cooldown is inactive, or schedules
+     * it at the time its cooldown becomes inactive otherwise.
+     */
+    private void check(Subscription subscription) {
+        boolean ready;
+        long deadline = 0;
+        try {
+            ready = subscription.ready.getAsBoolean();
+            if (!ready) {
+                // a cooldown is active while the elapsed time is not above its timeout
+                deadline = this.timeSource.currentTimeMillis() + subscription.remaining.getAsLong() + 1;
+            }
+        } catch (Exception e) {
+            log.warn("Exception thrown whilst checking a cooldown subscription, cancelling it", e);
+            subscription.cancel();
+            return;
+        }
+
+        synchronized (this.wheel) {
+            if (subscription.done) {
+                return;
+            }
+            if (!ready) {
+                if (subscription.node == null) {
+                    subscription.node = this.wheel.schedule(subscription, deadline);
+                } else {
+                    this.wheel.reschedule(subscription.node, deadline);
+                }
+                return;
+            }
+            subscription.done = true;
+            if (subscription.node != null) {
+                this.wheel.cancel(subscription.node);
+            }
+        }
+
+        this.scheduler.executeAsync(() -> {
+            try {
+                subscription.callback.run();
+            } catch (Exception e) {
+                log.warn("Exception thrown whilst running a cooldown callback", e);
+            }
+        });
+    }
+
+    /**
+     * A subscription to a cooldown becoming inactive, notified at most once.
+     */
+    public static final class Subscription {
+        private final CooldownNotifier notifier;
+        private final BooleanSupplier ready;
+        private final LongSupplier remaining;
+        private final Runnable callback;
+
+        // guarded by the wheel of the notifier
+        private TimingWheel.@Nullable Node<Subscription> node;
+        private boolean done;
+
+        private Subscription(CooldownNotifier notifier, BooleanSupplier ready, LongSupplier remaining, Runnable callback) {
+            this.notifier = notifier;
+            this.ready = ready;
+            this.remaining = remaining;
+            this.callback = callback;
+        }
+
+        /**
+         * Checks the cooldown again, to take a reduction into account.
+         */
+        public void refresh() {
+            this.notifier.check(this);
+        }
+
+        /**
+         * Cancels this subscription.
+         *
+         * @return true if the subscription was still waiting for its cooldown
+         */
+        public boolean cancel() {
+            synchronized (this.notifier.wheel) {
+                if (this.done) {
+                    return false;
+                }
+                this.done = true;
+                if (this.node != null) {
+                    this.notifier.wheel.cancel(this.node);
+                }
+                return true;
+            }
+        }
+
+        /**
+         * @return true if the subscription has been notified or cancelled
+         */
+        public boolean isDone() {
+            synchronized (this.notifier.wheel) {
+                return this.done;
+            }
+        }
+    }
+
+    public static final class Builder {
+        private final SchedulerAdapter scheduler;
+        private long resolution = 50;
+        private TimeSource timeSource = TimeSource.system();
+
+        private Builder(SchedulerAdapter scheduler) {
+            this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        }
+
+        /**
+         * @param amount the interval between two checks of due subscriptions
+         * @param unit   the unit of time
+         */
+        public Builder resolution(long amount, TimeUnit unit) {
+            Preconditions.checkArgument(unit.toMillis(amount) > 0, "resolution must be at least a millisecond");
+            this.resolution = unit.toMillis(amount);
+            return this;
+        }
+
+        /**
+         * @param timeSource the source of the current time driving the notifier
+         */
+        public Builder timeSource(TimeSource timeSource) {
+            this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+            return this;
+        }
+
+        public CooldownNotifier build() {
+            return new CooldownNotifier(this);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package me.kubbidev.laboratory.cooldown;
+
+/**
+ * The slot storage of an open addressing table of cooldowns, see
+ * {@link AbstractPrimitiveCooldownMap}.
+ * <p>
+ * Each slot holds a key of one or two longs, the last tested time and the
+ * timeout of its cooldown. The storage only reads and writes slots, the
+ * probing is left to the table.
+ */
+interface CooldownSlots {
+
+    /**
+     * @return the number of slots, a power of two
+     */
+    int capacity();
+
+    /**
+     * @return the number of used slots
+     */
+    int size();
+
+    void setSize(int size);
+
+    boolean isUsed(int slot);
+
+    long high(int slot);
+
+    /**
+     * @return the second long of the key, zero for single long keys
+     */
+    long low(int slot);
+
+    long lastTested(int slot);
+
+    long timeout(int slot);
+
+    /**
+     * Fills the given slot, marking it as used.
+     */
+    void set(int slot, long high, long low, long lastTested, long timeout);
+
+    void setLastTested(int slot, long lastTested);
+
+    void setTimeout(int slot, long timeout);
+
+    /**
+     * Marks the given slot as free.
+     */
+    void free(int slot);
+
+    /**
+     * Marks every slot as free.
+     */
+    void clear();
+}
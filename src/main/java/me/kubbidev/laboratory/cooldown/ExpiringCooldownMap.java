@@ -0,0 +1,385 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Maps;
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+import me.kubbidev.laboratory.scheduler.SchedulerTask;
+import me.kubbidev.laboratory.scheduler.TimingWheel;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * A thread safe cooldown map evicting cooldowns once they have been
+ * inactive for longer than a grace period.
+ * <p>
+ * Each cooldown is scheduled in a {@link TimingWheel} at the time it would
+ * become evictable, and the wheel is advanced by a repeating task of the
+ * given {@link SchedulerAdapter}: no scan of the whole map ever happens.
+ * Testing or resetting a cooldown does not touch the wheel, instead the
+ * cooldown is checked again when its deadline comes up, and scheduled
+ * again if it has been used since.
+ * <p>
+ * The returned map should be {@link #close() closed} once not needed
+ * anymore, to stop the eviction task.
+ *
+ * @param <T> the type
+ */
+@Slf4j
+public final class ExpiringCooldownMap<T> implements CooldownMap<T>, AutoCloseable {
+
+    /**
+     * Creates a new builder.
+     *
+     * @param scheduler the scheduler running the eviction task
+     * @return a new builder
+     */
+    public static <T> Builder<T> builder(SchedulerAdapter scheduler) {
+        return new Builder<>(scheduler);
+    }
+
+    private final Map<T, Entry<T>> entries = new ConcurrentHashMap<>();
+    private final Map<T, Cooldown> view = Collections.unmodifiableMap(Maps.transformValues(this.entries, entry -> entry.cooldown));
+
+    // guarded by itself
+    private final TimingWheel<Entry<T>> wheel;
+
+    // the time in millis a cooldown must stay inactive for before being evicted
+    private final long gracePeriod;
+
+    // the timeout of cooldowns created for absent keys, or -1 if absent keys are not populated
+    private final long timeout;
+
+    private final TimeSource timeSource;
+    private final @Nullable RemovalListener<? super T> removalListener;
+    private final SchedulerTask task;
+
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rechecks = new LongAdder();
+
+    // guarded by itself, runs of the eviction task may overlap on some schedulers
+    private final List<Entry<T>> expired = new ArrayList<>();
+    private final Consumer<Entry<T>> collectExpired = this.expired::add;
+
+    private ExpiringCooldownMap(Builder<T> builder) {
+        this.gracePeriod = builder.gracePeriod;
+        this.timeout = builder.base == null ? -1 : builder.base.getTimeout();
+        this.timeSource = builder.timeSource;
+        this.removalListener = builder.removalListener;
+        this.wheel = new TimingWheel<>(builder.resolution, this.timeSource.currentTimeMillis());
+        this.task = builder.scheduler.asyncRepeating(this::expire, builder.resolution, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<Cooldown> get(T key) {
+        Objects.requireNonNull(key, "key");
+        Entry<T> entry = this.entries.get(key);
+        return entry == null ? Optional.empty() : Optional.of(entry.cooldown);
+    }
+
+    /**
+     * Associates a cooldown with the given key.
+     * <p>
+     * The cooldown must use the time source of this map, as its inactivity
+     * is measured against it.
+     *
+     * @param key      the key
+     * @param cooldown the cooldown
+     * @throws IllegalArgumentException if the cooldown uses another time source
+     */
+    @Override
+    public void put(T key, Cooldown cooldown) {
+        Objects.requireNonNull(key, "key");
+        Objects.requireNonNull(cooldown, "cooldown");
+        Preconditions.checkArgument(cooldown.getTimeSource() == this.timeSource, "cooldown must use the time source of the map");
+        Entry<T> entry = new Entry<>(key, cooldown, this.timeSource.currentTimeMillis());
+
+        // published before being scheduled, so the eviction task never sees it as replaced
+        Entry<T> previous = this.entries.put(key, entry);
+        schedule(entry);
+        if (previous != null) {
+            cancel(previous);
+            notifyRemoval(previous, RemovalCause.REPLACED);
+        }
+    }
+
+    /**
+     * Removes the cooldown associated with the given key.
+     *
+     * @param key the key
+     * @return the removed cooldown
+     */
+    public Optional<Cooldown> remove(T key) {
+        Objects.requireNonNull(key, "key");
+        Entry<T> entry = this.entries.remove(key);
+        if (entry == null) {
+            return Optional.empty();
+        }
+        cancel(entry);
+        notifyRemoval(entry, RemovalCause.EXPLICIT);
+        return Optional.of(entry.cooldown);
+    }
+
+    /**
+     * Returns an unmodifiable view of the cooldowns of this map.
+     *
+     * @return a map view
+     */
+    @Override
+    public Map<T, Cooldown> getAll() {
+        return this.view;
+    }
+
+    @Override
+    public boolean test(T key) {
+        Objects.requireNonNull(key, "key");
+        Entry<T> entry = this.entries.get(key);
+        if (entry == null) {
+            if (this.timeout < 0) {
+                return true;
+            }
+            Entry<T> created = new Entry<>(key, Cooldown.concurrent(this.timeout, TimeUnit.MILLISECONDS, this.timeSource), this.timeSource.currentTimeMillis());
+            entry = this.entries.putIfAbsent(key, created);
+            if (entry == null) {
+                entry = created;
+                schedule(created);
+            }
+        }
+        return entry.cooldown.test();
+    }
+
+    /**
+     * @return the number of cooldowns in this map
+     */
+    public int size() {
+        return this.entries.size();
+    }
+
+    /**
+     * @return the eviction statistics of this map
+     */
+    public Stats getStats() {
+        return new Stats(this.entries.size(), this.evictions.sum(), this.rechecks.sum());
+    }
+
+    /**
+     * Stops evicting cooldowns.
+     */
+    @Override
+    public void close() {
+        this.task.cancel();
+    }
+
+    /**
+     * Advances the wheel, evicting cooldowns inactive for
+     * longer than the grace period.
+     */
+    private void expire() {
+        synchronized (this.expired) {
+            long now = this.timeSource.currentTimeMillis();
+            synchronized (this.wheel) {
+                this.wheel.advance(now, this.collectExpired);
+            }
+            try {
+                evict(now);
+            } finally {
+                this.expired.clear();
+            }
+        }
+    }
+
+    /**
+     * Evicts the expired cooldowns still inactive, scheduling the other ones again.
+     */
+    private void evict(long now) {
+        for (Entry<T> entry : this.expired) {
+            if (this.entries.get(entry.key) != entry) {
+                // replaced or removed in the meantime
+                continue;
+            }
+            if (deadline(entry) > now) {
+                // used since it was scheduled
+                this.rechecks.increment();
+                schedule(entry);
+                continue;
+            }
+            if (!this.entries.remove(entry.key, entry)) {
+                continue;
+            }
+
+            // the cooldown may have been tested right before being removed
+            if (deadline(entry) > now && this.entries.putIfAbsent(entry.key, entry) == null) {
+                this.rechecks.increment();
+                schedule(entry);
+                continue;
+            }
+            this.evictions.increment();
+            notifyRemoval(entry, RemovalCause.EXPIRED);
+        }
+    }
+
+    private long deadline(Entry<T> entry) {
+        long lastActive = Math.max(entry.cooldown.getLastTested().orElse(0), entry.createdAt);
+        return lastActive + entry.cooldown.getTimeout() + this.gracePeriod;
+    }
+
+    private void schedule(Entry<T> entry) {
+        long deadline = deadline(entry);
+        synchronized (this.wheel) {
+            if (entry.node == null) {
+                entry.node = this.wheel.schedule(entry, deadline);
+            } else {
+                this.wheel.reschedule(entry.node, deadline);
+            }
+        }
+    }
+
+    private void cancel(Entry<T> entry) {
+        synchronized (this.wheel) {
+            if (entry.node != null) {
+                this.wheel.cancel(entry.node);
+            }
+        }
+    }
+
+    private void notifyRemoval(Entry<T> entry, RemovalCause cause) {
+        if (this.removalListener == null) {
+            return;
+        }
+        try {
+            this.removalListener.onRemoval(entry.key, entry.cooldown, cause);
+        } catch (Exception e) {
+            log.warn("Removal listener threw an exception for key " + entry.key, e);
+        }
+    }
+
+    private static final class Entry<T> {
+        private final T key;
+        private final Cooldown cooldown;
+        private final long createdAt;
+
+        // guarded by the wheel
+        private TimingWheel.@Nullable Node<Entry<T>> node;
+
+        Entry(T key, Cooldown cooldown, long createdAt) {
+            this.key = key;
+            this.cooldown = cooldown;
+            this.createdAt = createdAt;
+        }
+    }
+
+    /**
+     * The reason a cooldown was removed from the map.
+     */
+    public enum RemovalCause {
+        /**
+         * The cooldown stayed inactive for longer than the grace period
+         */
+        EXPIRED,
+        /**
+         * Another cooldown was put for the same key
+         */
+        REPLACED,
+        /**
+         * The cooldown was removed with {@link #remove(Object)}
+         */
+        EXPLICIT
+    }
+
+    /**
+     * Listens to cooldowns being removed from the map.
+     * <p>
+     * Listeners are called synchronously, from the thread removing the
+     * cooldown, which is a scheduler thread for evictions.
+     *
+     * @param <T> the type
+     */
+    @FunctionalInterface
+    public interface RemovalListener<T> {
+
+        void onRemoval(T key, Cooldown cooldown, RemovalCause cause);
+    }
+
+    /**
+     * Eviction statistics.
+     *
+     * @param size      the number of cooldowns in the map
+     * @param evictions the number of cooldowns evicted since creation
+     * @param rechecks  the number of cooldowns found active again when their deadline came up
+     */
+    public record Stats(int size, long evictions, long rechecks) {
+    }
+
+    public static final class Builder<T> {
+        private final SchedulerAdapter scheduler;
+        private long gracePeriod = TimeUnit.MINUTES.toMillis(5);
+        private long resolution = TimeUnit.SECONDS.toMillis(1);
+        private @Nullable Cooldown base;
+        private TimeSource timeSource = TimeSource.system();
+        private @Nullable RemovalListener<? super T> removalListener;
+
+        private Builder(SchedulerAdapter scheduler) {
+            this.scheduler = Objects.requireNonNull(scheduler, "scheduler");
+        }
+
+        /**
+         * @param amount the time a cooldown must stay inactive for before being evicted
+         * @param unit   the unit of time
+         */
+        public Builder<T> gracePeriod(long amount, TimeUnit unit) {
+            Preconditions.checkArgument(amount >= 0, "grace period cannot be negative");
+            this.gracePeriod = unit.toMillis(amount);
+            return this;
+        }
+
+        /**
+         * @param amount the interval between two eviction runs
+         * @param unit   the unit of time
+         */
+        public Builder<T> resolution(long amount, TimeUnit unit) {
+            Preconditions.checkArgument(unit.toMillis(amount) > 0, "resolution must be at least a millisecond");
+            this.resolution = unit.toMillis(amount);
+            return this;
+        }
+
+        /**
+         * Populates absent keys when testing them, with cooldowns having
+         * the timeout of the given base cooldown.
+         *
+         * @param base the cooldown to base new cooldowns on
+         */
+        public Builder<T> populating(@Nullable Cooldown base) {
+            this.base = base;
+            return this;
+        }
+
+        /**
+         * Sets the time source the map measures inactivity with, which
+         * is also used by cooldowns created for absent keys. Cooldowns put
+         * in the map must use the same time source.
+         *
+         * @param timeSource the source of the current time
+         */
+        public Builder<T> timeSource(TimeSource timeSource) {
+            this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+            return this;
+        }
+
+        /**
+         * @param removalListener the listener called whenever a cooldown is removed
+         */
+        public Builder<T> removalListener(@Nullable RemovalListener<? super T> removalListener) {
+            this.removalListener = removalListener;
+            return this;
+        }
+
+        public ExpiringCooldownMap<T> build() {
+            return new ExpiringCooldownMap<>(this);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Range;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A self-populating map holding every cooldown of a {@link CooldownGroup}
+ * for each key, in a single record.
+ * <p>
+ * A record is an array of last tested times indexed like the group, so
+ * cooldowns are addressed by index without any lookup besides the key,
+ * and bulk operations on every cooldown of a key are a single pass over
+ * its record.
+ * <p>
+ * Testing, resetting or setting the last tested time of a cooldown of a
+ * key without record creates one. This map is not thread safe.
+ *
+ * @param <T> the type
+ */
+public final class GroupedCooldownMap<T> {
+    private final Map<T, long[]> records = new HashMap<>();
+
+    private final CooldownGroup group;
+    private final TimeSource timeSource;
+
+    // the cooldown durations in millis, by index
+    private final long[] timeouts;
+
+    /**
+     * @param group the cooldowns held by each key
+     */
+    public GroupedCooldownMap(CooldownGroup group) {
+        this(group, TimeSource.system());
+    }
+
+    /**
+     * @param group      the cooldowns held by each key
+     * @param timeSource the source of the current time
+     */
+    public GroupedCooldownMap(CooldownGroup group, TimeSource timeSource) {
+        this.group = Objects.requireNonNull(group, "group");
+        this.timeSource = Objects.requireNonNull(timeSource, "timeSource");
+        this.timeouts = group.timeouts();
+    }
+
+    /**
+     * @return the cooldowns held by each key
+     */
+    public CooldownGroup getGroup() {
+        return this.group;
+    }
+
+    /**
+     * @return the source of the current time used by this map
+     */
+    public TimeSource getTimeSource() {
+        return this.timeSource;
+    }
+
+    /**
+     * @return the number of keys holding a record
+     */
+    public int size() {
+        return this.records.size();
+    }
+
+    /**
+     * Gets a cooldown of the given key, reading and writing through to its record.
+     *
+     * @param key      the key
+     * @param cooldown the index of the cooldown in the group
+     * @return the cooldown, if the key holds a record
+     */
+    public Optional<Cooldown> get(T key, int cooldown) {
+        Objects.requireNonNull(key, "key");
+        Objects.checkIndex(cooldown, this.timeouts.length);
+        return this.records.containsKey(key) ? Optional.of(new RecordCooldown(key, cooldown)) : Optional.empty();
+    }
+
+    /* single cooldown operations */
+
+    public boolean test(T key, int cooldown) {
+        long now = this.timeSource.currentTimeMillis();
+        long[] record = getOrCreate(key);
+        if (now - record[cooldown] > this.timeouts[cooldown]) {
+            record[cooldown] = now;
+            return true;
+        }
+        return false;
+    }
+
+    public boolean test(T key, String cooldown) {
+        return test(key, this.group.indexOf(cooldown));
+    }
+
+    public boolean testSilently(T key, int cooldown) {
+        long[] record = get(key);
+        return record == null || this.timeSource.currentTimeMillis() - record[cooldown] > this.timeouts[cooldown];
+    }
+
+    public boolean testSilently(T key, String cooldown) {
+        return testSilently(key, this.group.indexOf(cooldown));
+    }
+
+    public void reset(T key, int cooldown) {
+        getOrCreate(key)[cooldown] = this.timeSource.currentTimeMillis();
+    }
+
+    public void reset(T key, String cooldown) {
+        reset(key, this.group.indexOf(cooldown));
+    }
+
+    public long remainingMillis(T key, int cooldown) {
+        long[] record = get(key);
+        return record == null ? 0L : remainingMillis(record, cooldown, this.timeSource.currentTimeMillis());
+    }
+
+    public long remainingMillis(T key, String cooldown) {
+        return remainingMillis(key, this.group.indexOf(cooldown));
+    }
+
+    public long remainingTime(T key, int cooldown, TimeUnit unit) {
+        return Math.max(0L, unit.convert(remainingMillis(key, cooldown), TimeUnit.MILLISECONDS));
+    }
+
+    public OptionalLong getLastTested(T key, int cooldown) {
+        long[] record = get(key);
+        return record == null || record[cooldown] == 0 ? OptionalLong.empty() : OptionalLong.of(record[cooldown]);
+    }
+
+    public void setLastTested(T key, int cooldown, long time) {
+        getOrCreate(key)[cooldown] = Math.max(time, 0);
+    }
+
+    /* bulk operations */
+
+    /**
+     * Reduces the remaining time of every cooldown of the given key by a percentage.
+     *
+     * @param key the key
+     * @param p   the percentage by which to reduce the remaining cooldowns, in the range from 0 to 1
+     * @see Cooldown#reduceRemainingCooldown(float)
+     */
+    public void reduceRemaining(T key, @Range(from = 0, to = 1) float p) {
+        Preconditions.checkArgument(p >= 0 && p <= 1, "percentage must be between 0 and 1");
+        long[] record = get(key);
+        if (record == null) {
+            return;
+        }
+        long now = this.timeSource.currentTimeMillis();
+        for (int i = 0; i < record.length; i++) {
+            if (record[i] != 0) {
+                record[i] = Math.max(0, record[i] - (long) (remainingMillis(record, i, now) * p));
+            }
+        }
+    }
+
+    /**
+     * Reduces every cooldown of the given key by a percentage of its initial time.
+     *
+     * @param key the key
+     * @param p   the percentage by which to reduce the initial cooldowns, in the range from 0 to 1
+     * @see Cooldown#reduceInitialCooldown(float)
+     */
+    public void reduceInitial(T key, @Range(from = 0, to = 1) float p) {
+        Preconditions.checkArgument(p >= 0 && p <= 1, "percentage must be between 0 and 1");
+        long[] record = get(key);
+        if (record == null) {
+            return;
+        }
+        for (int i = 0; i < record.length; i++) {
+            if (record[i] != 0) {
+                record[i] = Math.max(0, record[i] - (long) (this.timeouts[i] * p));
+            }
+        }
+    }
+
+    /**
+     * Reduces the remaining time of every cooldown of the given key by a flat amount.
+     *
+     * @param key the key
+     * @param d   the amount in seconds by which to reduce the remaining cooldowns
+     * @see Cooldown#reduceFlat(float)
+     */
+    public void reduceFlat(T key, @Range(from = 0, to = Long.MAX_VALUE) float d) {
+        Preconditions.checkArgument(d >= 0, "Reduction amount must be non-negative");
+        long[] record = get(key);
+        if (record == null) {
+            return;
+        }
+        long reductionMillis = (long) (d * 1000L);
+        for (int i = 0; i < record.length; i++) {
+            if (record[i] != 0) {
+                record[i] = Math.max(0, record[i] - reductionMillis);
+            }
+        }
+    }
+
+    /**
+     * Resets every cooldown of the given key.
+     *
+     * @param key the key
+     * @see Cooldown#reset()
+     */
+    public void resetAll(T key) {
+        long now = this.timeSource.currentTimeMillis();
+        long[] record = getOrCreate(key);
+        for (int i = 0; i < record.length; i++) {
+            record[i] = now;
+        }
+    }
+
+    /**
+     * Removes the record of the given key, so none of its cooldowns is active anymore.
+     *
+     * @param key the key
+     * @return true if the key held a record
+     */
+    public boolean remove(T key) {
+        Objects.requireNonNull(key, "key");
+        return this.records.remove(key) != null;
+    }
+
+    /**
+     * Removes the records of which no cooldown is active anymore.
+     *
+     * @return the number of removed records
+     */
+    public int removeInactive() {
+        long now = this.timeSource.currentTimeMillis();
+        int removed = 0;
+        for (Iterator<long[]> it = this.records.values().iterator(); it.hasNext(); ) {
+            if (isInactive(it.next(), now)) {
+                it.remove();
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    public void clear() {
+        this.records.clear();
+    }
+
+    private boolean isInactive(long[] record, long now) {
+        for (int i = 0; i < record.length; i++) {
+            if (now - record[i] <= this.timeouts[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private long remainingMillis(long[] record, int cooldown, long now) {
+        long diff = now - record[cooldown];
+        long timeout = this.timeouts[cooldown];
+        return diff > timeout ? 0L : timeout - diff;
+    }
+
+    private long[] get(T key) {
+        return this.records.get(Objects.requireNonNull(key, "key"));
+    }
+
+    private long[] getOrCreate(T key) {
+        Objects.requireNonNull(key, "key");
+        long[] record = this.records.get(key);
+        if (record == null) {
+            record = new long[this.timeouts.length];
+            this.records.put(key, record);
+        }
+        return record;
+    }
+
+    /**
+     * A cooldown reading and writing through to the record of a key.
+     */
+    private final class RecordCooldown implements Cooldown {
+        private final T key;
+        private final int index;
+
+        RecordCooldown(T key, int index) {
+            this.key = key;
+            this.index = index;
+        }
+
+        @Override
+        public boolean test() {
+            return GroupedCooldownMap.this.test(this.key, this.index);
+        }
+
+        @Override
+        public OptionalLong getLastTested() {
+            return GroupedCooldownMap.this.getLastTested(this.key, this.index);
+        }
+
+        @Override
+        public void setLastTested(long time) {
+            GroupedCooldownMap.this.setLastTested(this.key, this.index, time);
+        }
+
+        @Override
+        public long getTimeout() {
+            return GroupedCooldownMap.this.timeouts[this.index];
+        }
+
+        @Override
+        public TimeSource getTimeSource() {
+            return GroupedCooldownMap.this.timeSource;
+        }
+
+        @Override
+        public Cooldown copy() {
+            return Cooldown.of(getTimeout(), TimeUnit.MILLISECONDS, GroupedCooldownMap.this.timeSource);
+        }
+    }
+}
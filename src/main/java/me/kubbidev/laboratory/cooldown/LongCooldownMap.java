@@ -0,0 +1,120 @@
+package me.kubbidev.laboratory.cooldown;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A self-populating cooldown map keyed by primitive longs, such as entity ids.
+ * <p>
+ * Keys, last tested times and timeouts are stored inline in primitive
+ * arrays: no object is kept per entry, and the primitive overloads of the
+ * query methods never allocate.
+ * <p>
+ * Testing, resetting or setting the last tested time of a key without
+ * cooldown associates it with a new cooldown using the default timeout.
+ * This map is not thread safe.
+ */
+public final class LongCooldownMap extends AbstractPrimitiveCooldownMap<Long> {
+
+    /**
+     * @param amount the default amount of time of a cooldown
+     * @param unit   the unit of time
+     */
+    public LongCooldownMap(long amount, TimeUnit unit) {
+        this(amount, unit, TimeSource.system(), 0);
+    }
+
+    /**
+     * @param amount     the default amount of time of a cooldown
+     * @param unit       the unit of time
+     * @param timeSource the source of the current time
+     */
+    public LongCooldownMap(long amount, TimeUnit unit, TimeSource timeSource) {
+        this(amount, unit, timeSource, 0);
+    }
+
+    /**
+     * @param amount       the default amount of time of a cooldown
+     * @param unit         the unit of time
+     * @param expectedSize the expected number of cooldowns
+     */
+    public LongCooldownMap(long amount, TimeUnit unit, int expectedSize) {
+        this(amount, unit, TimeSource.system(), expectedSize);
+    }
+
+    /**
+     * @param amount       the default amount of time of a cooldown
+     * @param unit         the unit of time
+     * @param timeSource   the source of the current time
+     * @param expectedSize the expected number of cooldowns
+     */
+    public LongCooldownMap(long amount, TimeUnit unit, TimeSource timeSource, int expectedSize) {
+        super(1, amount, unit, timeSource, expectedSize);
+    }
+
+    @Override
+    long high(Long key) {
+        return key;
+    }
+
+    @Override
+    long low(Long key) {
+        return 0;
+    }
+
+    @Override
+    Long key(long high, long low) {
+        return high;
+    }
+
+    /**
+     * @see CooldownMap#test(Object)
+     */
+    public boolean test(long key) {
+        return test(key, 0);
+    }
+
+    /**
+     * @see CooldownMap#testSilently(Object)
+     */
+    public boolean testSilently(long key) {
+        return testSilently(key, 0);
+    }
+
+    /**
+     * @see CooldownMap#elapsed(Object)
+     */
+    public long elapsed(long key) {
+        return elapsed(key, 0);
+    }
+
+    /**
+     * @see CooldownMap#reset(Object)
+     */
+    public void reset(long key) {
+        setLastTested(key, 0, getTimeSource().currentTimeMillis());
+    }
+
+    /**
+     * @see CooldownMap#remainingMillis(Object)
+     */
+    public long remainingMillis(long key) {
+        return remainingMillis(key, 0);
+    }
+
+    /**
+     * @see CooldownMap#setLastTested(Object, long)
+     */
+    public void setLastTested(long key, long time) {
+        setLastTested(key, 0, time);
+    }
+
+    /**
+     * Removes the cooldown associated with the given key.
+     *
+     * @param key the key
+     * @return true if a cooldown was removed
+     */
+    public boolean remove(long key) {
+        return remove(key, 0);
+    }
+}
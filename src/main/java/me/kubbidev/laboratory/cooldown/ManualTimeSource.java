@@ -0,0 +1,41 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A time source which only moves when told to, for tests and benchmarks.
+ */
+public final class ManualTimeSource implements TimeSource {
+    private volatile long time;
+
+    ManualTimeSource(long time) {
+        this.time = time;
+    }
+
+    @Override
+    public long currentTimeMillis() {
+        return this.time;
+    }
+
+    /**
+     * Sets the current time.
+     *
+     * @param time the time in milliseconds
+     */
+    public synchronized void set(long time) {
+        this.time = time;
+    }
+
+    /**
+     * Moves the current time forward.
+     *
+     * @param amount the amount of time
+     * @param unit   the unit of time
+     */
+    public synchronized void advance(long amount, TimeUnit unit) {
+        Preconditions.checkArgument(amount >= 0, "amount cannot be negative");
+        this.time += unit.toMillis(amount);
+    }
+}
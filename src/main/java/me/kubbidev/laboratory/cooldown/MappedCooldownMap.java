@@ -0,0 +1,431 @@
+package me.kubbidev.laboratory.cooldown;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+
+/**
+ * A cooldown map stored off heap, in a memory-mapped file.
+ * <p>
+ * The file holds the slots of an open addressing table, each made of a key
+ * of one or two longs, the last tested time and the timeout of its cooldown.
+ * Once three quarters of the slots are used, inserting a new key first
+ * removes the inactive cooldowns, and if the table is still more than half
+ * full, doubles the number of slots by rehashing into a new file which then
+ * replaces the old one. Active cooldowns are never dropped: a table which
+ * reached the maximum capacity fails to insert with an
+ * {@link IllegalStateException} rather than forgetting one.
+ * <p>
+ * Opening an existing file maps it as is, without any load phase. Last
+ * tested times are stored as given by the time source, which should
+ * therefore be the {@link TimeSource#system() system} one for cooldowns to
+ * carry over restarts. Changes reach the file when the operating system
+ * writes the mapped pages back, or on {@link #force()} and {@link #close()}.
+ * <p>
+ * Cooldowns are only added by {@link #put(Object, Cooldown)}, as with the map
+ * returned by {@link CooldownMap#create()}: testing a key without cooldown
+ * returns true, and resetting or setting its last tested time does nothing.
+ * This map is not thread safe.
+ *
+ * @param <T> the type
+ */
+public final class MappedCooldownMap<T> extends AbstractPrimitiveCooldownMap<T> implements AutoCloseable {
+    private static final long MAGIC = 0x4C41424344574E31L; // "LABCDWN1"
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int MAGIC_OFFSET = 0;
+    private static final int VERSION_OFFSET = 8;
+    private static final int LAYOUT_OFFSET = 12;
+    private static final int CAPACITY_OFFSET = 16;
+    private static final int SIZE_OFFSET = 24;
+
+    // high key, low key, last tested time, and timeout plus one, zero for a free slot
+    private static final int SLOT_SHIFT = 5;
+    private static final int HIGH_OFFSET = 0;
+    private static final int LOW_OFFSET = 8;
+    private static final int LAST_TESTED_OFFSET = 16;
+    private static final int META_OFFSET = 24;
+
+    // slots are mapped by regions, a single mapping being limited to 2GB
+    private static final int REGION_BITS = 20;
+    private static final int REGION_MASK = (1 << REGION_BITS) - 1;
+
+    private static final int MIN_CAPACITY = 1024;
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Opens a map keyed by primitive longs, such as user ids or IPv4 addresses.
+     *
+     * @param file     the file storing the map, created if absent
+     * @param capacity the initial number of slots of a new file, rounded up to a power of two
+     * @return the map
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static MappedCooldownMap<Long> longKeys(Path file, int capacity) throws IOException {
+        return longKeys(file, capacity, TimeSource.system());
+    }
+
+    /**
+     * Opens a map keyed by primitive longs, measuring time with the given time source.
+     *
+     * @param file       the file storing the map, created if absent
+     * @param capacity   the initial number of slots of a new file, rounded up to a power of two
+     * @param timeSource the source of the current time
+     * @return the map
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static MappedCooldownMap<Long> longKeys(Path file, int capacity, TimeSource timeSource) throws IOException {
+        return new MappedCooldownMap<>(KeyLayout.LONG_KEYS, file, capacity, timeSource);
+    }
+
+    /**
+     * Opens a map keyed by unique ids, or any other 128 bit value such as IPv6 addresses.
+     *
+     * @param file     the file storing the map, created if absent
+     * @param capacity the initial number of slots of a new file, rounded up to a power of two
+     * @return the map
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static MappedCooldownMap<UUID> uuidKeys(Path file, int capacity) throws IOException {
+        return uuidKeys(file, capacity, TimeSource.system());
+    }
+
+    /**
+     * Opens a map keyed by unique ids, measuring time with the given time source.
+     *
+     * @param file       the file storing the map, created if absent
+     * @param capacity   the initial number of slots of a new file, rounded up to a power of two
+     * @param timeSource the source of the current time
+     * @return the map
+     * @throws IOException if the file cannot be opened or mapped
+     */
+    public static MappedCooldownMap<UUID> uuidKeys(Path file, int capacity, TimeSource timeSource) throws IOException {
+        return new MappedCooldownMap<>(KeyLayout.UUID_KEYS, file, capacity, timeSource);
+    }
+
+    private final KeyLayout<T> layout;
+    private final Path file;
+    private MappedSlots storage;
+
+    private MappedCooldownMap(KeyLayout<T> layout, Path file, int capacity, TimeSource timeSource) throws IOException {
+        this(layout, file, new MappedSlots(file, layout.id(), capacity), timeSource);
+    }
+
+    private MappedCooldownMap(KeyLayout<T> layout, Path file, MappedSlots storage, TimeSource timeSource) {
+        super(layout.width(), storage, timeSource);
+        this.layout = layout;
+        this.file = file;
+        this.storage = storage;
+    }
+
+    @Override
+    long high(T key) {
+        return this.layout.high(key);
+    }
+
+    @Override
+    long low(T key) {
+        return this.layout.low(key);
+    }
+
+    @Override
+    T key(long high, long low) {
+        return this.layout.key(high, low);
+    }
+
+    /**
+     * @return the number of slots of the table
+     */
+    @Override
+    public int capacity() {
+        return super.capacity();
+    }
+
+    /**
+     * Writes the changes made to the map to the file.
+     */
+    public void force() {
+        this.storage.force();
+    }
+
+    /**
+     * Writes the changes made to the map to the file, and closes it.
+     * <p>
+     * The map must not be used afterwards.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        this.storage.close();
+    }
+
+    @Override
+    void makeRoom() {
+        removeInactive();
+        // growing a table which remains half empty is not worth a new file
+        if (size() <= threshold() / 2) {
+            return;
+        }
+        if (capacity() == MAX_CAPACITY) {
+            if (size() < threshold()) {
+                return;
+            }
+            throw new IllegalStateException("Cooldown store " + this.file + " is full of active cooldowns");
+        }
+
+        Path temp = this.file.resolveSibling(this.file.getFileName() + ".grow");
+        try {
+            Files.deleteIfExists(temp);
+            MappedSlots target = new MappedSlots(temp, this.layout.id(), capacity() << 1);
+            try {
+                rehash(target);
+            } catch (RuntimeException e) {
+                target.close();
+                throw e;
+            }
+            MappedSlots previous = this.storage;
+            this.storage = target;
+            previous.close();
+
+            target.force();
+            Files.move(temp, this.file, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot grow cooldown store " + this.file, e);
+        }
+    }
+
+    /**
+     * The slots of a cooldown store file, mapped by regions.
+     */
+    private static final class MappedSlots implements CooldownSlots {
+        private final FileChannel channel;
+        private final MappedByteBuffer header;
+        private final MappedByteBuffer[] regions;
+        private final int capacity;
+
+        /**
+         * Opens the given file, creating it with the given capacity if empty.
+         */
+        MappedSlots(Path file, int layout, int capacity) throws IOException {
+            Preconditions.checkArgument(capacity > 0 && capacity <= MAX_CAPACITY, "capacity must be between 1 and %s", MAX_CAPACITY);
+            this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                boolean created = this.channel.size() == 0;
+                if (!created && this.channel.size() < HEADER_SIZE) {
+                    throw new IOException("Cooldown store " + file + " has an incompatible format");
+                }
+
+                this.header = map(0, HEADER_SIZE);
+                if (created) {
+                    this.capacity = Math.max(MIN_CAPACITY, Integer.highestOneBit(capacity - 1) << 1);
+                    this.header.putLong(MAGIC_OFFSET, MAGIC);
+                    this.header.putInt(VERSION_OFFSET, VERSION);
+                    this.header.putInt(LAYOUT_OFFSET, layout);
+                    this.header.putLong(CAPACITY_OFFSET, this.capacity);
+                    this.header.putLong(SIZE_OFFSET, 0);
+                } else {
+                    long slots = this.header.getLong(CAPACITY_OFFSET);
+                    if (this.header.getLong(MAGIC_OFFSET) != MAGIC
+                            || this.header.getInt(VERSION_OFFSET) != VERSION
+                            || this.header.getInt(LAYOUT_OFFSET) != layout
+                            || slots < MIN_CAPACITY || slots > MAX_CAPACITY || Long.bitCount(slots) != 1
+                            || this.channel.size() != HEADER_SIZE + (slots << SLOT_SHIFT)) {
+                        throw new IOException("Cooldown store " + file + " has an incompatible format");
+                    }
+                    this.capacity = (int) slots;
+                }
+
+                int regionSlots = Math.min(this.capacity, 1 << REGION_BITS);
+                this.regions = new MappedByteBuffer[this.capacity / regionSlots];
+                for (int r = 0; r < this.regions.length; r++) {
+                    this.regions[r] = map(HEADER_SIZE + ((long) r << (REGION_BITS + SLOT_SHIFT)), (long) regionSlots << SLOT_SHIFT);
+                }
+            } catch (IOException | RuntimeException e) {
+                this.channel.close();
+                throw e;
+            }
+        }
+
+        private MappedByteBuffer map(long position, long size) throws IOException {
+            MappedByteBuffer buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, position, size);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            return buffer;
+        }
+
+        private MappedByteBuffer region(int slot) {
+            return this.regions[slot >>> REGION_BITS];
+        }
+
+        private static int offset(int slot) {
+            return (slot & REGION_MASK) << SLOT_SHIFT;
+        }
+
+        void force() {
+            this.header.force();
+            for (MappedByteBuffer region : this.regions) {
+                region.force();
+            }
+        }
+
+        void close() throws IOException {
+            force();
+            this.channel.close();
+        }
+
+        @Override
+        public int capacity() {
+            return this.capacity;
+        }
+
+        @Override
+        public int size() {
+            return (int) this.header.getLong(SIZE_OFFSET);
+        }
+
+        @Override
+        public void setSize(int size) {
+            this.header.putLong(SIZE_OFFSET, size);
+        }
+
+        @Override
+        public boolean isUsed(int slot) {
+            return region(slot).getLong(offset(slot) + META_OFFSET) != 0;
+        }
+
+        @Override
+        public long high(int slot) {
+            return region(slot).getLong(offset(slot) + HIGH_OFFSET);
+        }
+
+        @Override
+        public long low(int slot) {
+            return region(slot).getLong(offset(slot) + LOW_OFFSET);
+        }
+
+        @Override
+        public long lastTested(int slot) {
+            return region(slot).getLong(offset(slot) + LAST_TESTED_OFFSET);
+        }
+
+        @Override
+        public long timeout(int slot) {
+            return region(slot).getLong(offset(slot) + META_OFFSET) - 1;
+        }
+
+        @Override
+        public void set(int slot, long high, long low, long lastTested, long timeout) {
+            MappedByteBuffer region = region(slot);
+            int offset = offset(slot);
+            region.putLong(offset + HIGH_OFFSET, high);
+            region.putLong(offset + LOW_OFFSET, low);
+            region.putLong(offset + LAST_TESTED_OFFSET, lastTested);
+            region.putLong(offset + META_OFFSET, timeout + 1);
+        }
+
+        @Override
+        public void setLastTested(int slot, long lastTested) {
+            region(slot).putLong(offset(slot) + LAST_TESTED_OFFSET, lastTested);
+        }
+
+        @Override
+        public void setTimeout(int slot, long timeout) {
+            region(slot).putLong(offset(slot) + META_OFFSET, timeout + 1);
+        }
+
+        @Override
+        public void free(int slot) {
+            region(slot).putLong(offset(slot) + META_OFFSET, 0);
+        }
+
+        @Override
+        public void clear() {
+            for (int i = 0; i < this.capacity; i++) {
+                free(i);
+            }
+            setSize(0);
+        }
+    }
+
+    /**
+     * Maps keys to one or two longs and back.
+     */
+    private interface KeyLayout<T> {
+        KeyLayout<Long> LONG_KEYS = new KeyLayout<>() {
+            @Override
+            public int id() {
+                return 1;
+            }
+
+            @Override
+            public int width() {
+                return 1;
+            }
+
+            @Override
+            public long high(Long key) {
+                return key;
+            }
+
+            @Override
+            public long low(Long key) {
+                return 0;
+            }
+
+            @Override
+            public Long key(long high, long low) {
+                return high;
+            }
+        };
+
+        KeyLayout<UUID> UUID_KEYS = new KeyLayout<>() {
+            @Override
+            public int id() {
+                return 2;
+            }
+
+            @Override
+            public int width() {
+                return 2;
+            }
+
+            @Override
+            public long high(UUID key) {
+                return key.getMostSignificantBits();
+            }
+
+            @Override
+            public long low(UUID key) {
+                return key.getLeastSignificantBits();
+            }
+
+            @Override
+            public UUID key(long high, long low) {
+                return new UUID(high, low);
+            }
+        };
+
+        int id();
+
+        /**
+         * @return the number of longs making up a key
+         */
+        int width();
+
+        long high(T key);
+
+        long low(T key);
+
+        T key(long high, long low);
+    }
+}
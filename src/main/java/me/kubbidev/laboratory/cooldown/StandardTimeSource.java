@@ -0,0 +1,24 @@
+package me.kubbidev.laboratory.cooldown;
+
+import java.util.concurrent.TimeUnit;
+
+enum StandardTimeSource implements TimeSource {
+    SYSTEM {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+    },
+    MONOTONIC {
+        @Override
+        public long currentTimeMillis() {
+            return MonotonicOrigin.WALL_TIME + TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - MonotonicOrigin.NANO_TIME);
+        }
+    };
+
+    // initialized on first use of the monotonic source
+    private static final class MonotonicOrigin {
+        static final long WALL_TIME = System.currentTimeMillis();
+        static final long NANO_TIME = System.nanoTime();
+    }
+}
@@ -0,0 +1,70 @@
+package me.kubbidev.laboratory.cooldown;
+
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A source of the current time in milliseconds, used by cooldowns.
+ * <p>
+ * Cooldowns treat a last tested time of {@code 0} as never tested, so
+ * time sources are expected to return times far from {@code 0}, as
+ * {@link System#currentTimeMillis()} does.
+ */
+@FunctionalInterface
+public interface TimeSource {
+
+    /**
+     * Gets the time source reading {@link System#currentTimeMillis()}.
+     *
+     * @return the system time source
+     */
+    static TimeSource system() {
+        return StandardTimeSource.SYSTEM;
+    }
+
+    /**
+     * Gets a time source based on {@link System#nanoTime()}, starting at the
+     * wall clock time of its first use but never affected by wall clock
+     * adjustments afterwards.
+     *
+     * @return the monotonic time source
+     */
+    static TimeSource monotonic() {
+        return StandardTimeSource.MONOTONIC;
+    }
+
+    /**
+     * Creates a time source caching the time of another one, refreshed by a
+     * repeating task of the given scheduler.
+     *
+     * <p>Reading a cached time source is a single volatile read, and every
+     * read between two refreshes sees the same time.</p>
+     *
+     * @param source     the time source to cache
+     * @param scheduler  the scheduler refreshing the cached time
+     * @param resolution the interval between two refreshes
+     * @param unit       the unit of the interval
+     * @return a new cached time source
+     */
+    static CachedTimeSource cached(TimeSource source, SchedulerAdapter scheduler, long resolution, TimeUnit unit) {
+        return new CachedTimeSource(source, scheduler, resolution, unit);
+    }
+
+    /**
+     * Creates a time source which only moves when told to.
+     *
+     * @param time the initial time in milliseconds
+     * @return a new manual time source
+     */
+    static ManualTimeSource manual(long time) {
+        return new ManualTimeSource(time);
+    }
+
+    /**
+     * Gets the current time in milliseconds.
+     *
+     * @return the current time
+     */
+    long currentTimeMillis();
+}
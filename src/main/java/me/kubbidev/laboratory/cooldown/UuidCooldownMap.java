@@ -0,0 +1,128 @@
+package me.kubbidev.laboratory.cooldown;
+
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A self-populating cooldown map keyed by {@link UUID}s, such as player unique ids.
+ * <p>
+ * Both halves of each key, last tested times and timeouts are stored
+ * inline in primitive arrays: no object is kept per entry, and the query
+ * methods never allocate.
+ * <p>
+ * Testing, resetting or setting the last tested time of a key without
+ * cooldown associates it with a new cooldown using the default timeout.
+ * This map is not thread safe.
+ */
+public final class UuidCooldownMap extends AbstractPrimitiveCooldownMap<UUID> {
+
+    /**
+     * @param amount the default amount of time of a cooldown
+     * @param unit   the unit of time
+     */
+    public UuidCooldownMap(long amount, TimeUnit unit) {
+        this(amount, unit, TimeSource.system(), 0);
+    }
+
+    /**
+     * @param amount     the default amount of time of a cooldown
+     * @param unit       the unit of time
+     * @param timeSource the source of the current time
+     */
+    public UuidCooldownMap(long amount, TimeUnit unit, TimeSource timeSource) {
+        this(amount, unit, timeSource, 0);
+    }
+
+    /**
+     * @param amount       the default amount of time of a cooldown
+     * @param unit         the unit of time
+     * @param expectedSize the expected number of cooldowns
+     */
+    public UuidCooldownMap(long amount, TimeUnit unit, int expectedSize) {
+        this(amount, unit, TimeSource.system(), expectedSize);
+    }
+
+    /**
+     * @param amount       the default amount of time of a cooldown
+     * @param unit         the unit of time
+     * @param timeSource   the source of the current time
+     * @param expectedSize the expected number of cooldowns
+     */
+    public UuidCooldownMap(long amount, TimeUnit unit, TimeSource timeSource, int expectedSize) {
+        super(2, amount, unit, timeSource, expectedSize);
+    }
+
+    @Override
+    long high(UUID key) {
+        return key.getMostSignificantBits();
+    }
+
+    @Override
+    long low(UUID key) {
+        return key.getLeastSignificantBits();
+    }
+
+    @Override
+    UUID key(long high, long low) {
+        return new UUID(high, low);
+    }
+
+    /**
+     * @see CooldownMap#test(Object)
+     */
+    @Override
+    public boolean test(long mostSigBits, long leastSigBits) {
+        return super.test(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * @see CooldownMap#testSilently(Object)
+     */
+    @Override
+    public boolean testSilently(long mostSigBits, long leastSigBits) {
+        return super.testSilently(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * @see CooldownMap#elapsed(Object)
+     */
+    @Override
+    public long elapsed(long mostSigBits, long leastSigBits) {
+        return super.elapsed(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * @see CooldownMap#remainingMillis(Object)
+     */
+    @Override
+    public long remainingMillis(long mostSigBits, long leastSigBits) {
+        return super.remainingMillis(mostSigBits, leastSigBits);
+    }
+
+    /**
+     * @see CooldownMap#reset(Object)
+     */
+    public void reset(long mostSigBits, long leastSigBits) {
+        setLastTested(mostSigBits, leastSigBits, getTimeSource().currentTimeMillis());
+    }
+
+    /**
+     * @see CooldownMap#setLastTested(Object, long)
+     */
+    @Override
+    public void setLastTested(long mostSigBits, long leastSigBits, long time) {
+        super.setLastTested(mostSigBits, leastSigBits, time);
+    }
+
+    /**
+     * Removes the cooldown associated with the given key.
+     *
+     * @param mostSigBits  the most significant bits of the key
+     * @param leastSigBits the least significant bits of the key
+     * @return true if a cooldown was removed
+     */
+    @Override
+    public boolean remove(long mostSigBits, long leastSigBits) {
+        return super.remove(mostSigBits, leastSigBits);
+    }
+}
@@ -0,0 +1,185 @@
+package me.kubbidev.laboratory.damage;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * Evaluates the final damage of many {@link DamageMetadata} at once,
+ * typically every hit of an area of effect skill.
+ * <p>
+ * The packets of every damage metadata are laid out contiguously and their
+ * final values are computed with the {@code jdk.incubator.vector} api when
+ * the module is available (run with {@code --add-modules jdk.incubator.vector}),
+ * or with a scalar loop otherwise. The vector kernel is compiled separately
+ * and loaded by name, so nothing else depends on the incubator module.
+ * Packets are then summed per damage metadata in registration order, so
+ * results are bit-identical to {@link DamageMetadata#getDamage()} on both
+ * paths.
+ * <p>
+ * A batch is meant to be reused: {@link #clear()} keeps every buffer, so
+ * evaluating batches of similar size does not allocate. Batches are not
+ * thread safe.
+ */
+public final class DamageBatch {
+    private static final int DEFAULT_CAPACITY = 64;
+
+    private static final String VECTOR_KERNEL_CLASS = "me.kubbidev.laboratory.damage.VectorDamageKernel";
+
+    /**
+     * The kernel computing final values with the vector api, or null if unavailable.
+     */
+    private static final @Nullable DamageKernel VECTOR_KERNEL = Boolean.getBoolean("laboratory.damage.batch.scalar") ? null : loadVectorKernel();
+
+    private DamageMetadata[] metadata;
+    private int size;
+
+    // contiguous packet storage of every damage metadata of the batch
+    private double[] values = new double[0];
+    private double[] additiveModifiers = new double[0];
+    private double[] multiplicativeModifiers = new double[0];
+    private double[] finalValues = new double[0];
+
+    public DamageBatch() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize the expected number of damage metadata per batch
+     */
+    public DamageBatch(int expectedSize) {
+        Preconditions.checkArgument(expectedSize >= 0, "expected size cannot be negative");
+        this.metadata = new DamageMetadata[expectedSize];
+    }
+
+    /**
+     * @return true if final values are computed with the vector api
+     */
+    public static boolean isVectorized() {
+        return VECTOR_KERNEL != null;
+    }
+
+    /**
+     * Adds a damage metadata to this batch.
+     *
+     * @param metadata the damage metadata
+     * @return the same batch
+     */
+    public DamageBatch add(DamageMetadata metadata) {
+        metadata.checkLive();
+        if (this.size == this.metadata.length) {
+            this.metadata = Arrays.copyOf(this.metadata, Math.max(DEFAULT_CAPACITY, this.size << 1));
+        }
+        this.metadata[this.size++] = metadata;
+        return this;
+    }
+
+    /**
+     * @return the number of damage metadata in this batch
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Removes every damage metadata from this batch.
+     */
+    public void clear() {
+        Arrays.fill(this.metadata, 0, this.size, null);
+        this.size = 0;
+    }
+
+    /**
+     * Evaluates the final damage of every damage metadata of this batch.
+     *
+     * @return a new array holding the damage of each damage metadata, in insertion order
+     */
+    public double[] evaluate() {
+        return evaluate(new double[this.size]);
+    }
+
+    /**
+     * Evaluates the final damage of every damage metadata of this batch.
+     *
+     * @param into the array to write the damage of each damage metadata to, in insertion order
+     * @return the given array
+     */
+    public double[] evaluate(double[] into) {
+        Preconditions.checkArgument(into.length >= this.size, "result array is too small");
+        DamageKernel kernel = VECTOR_KERNEL;
+        if (kernel != null) {
+            evaluateVectorized(kernel, into);
+        } else {
+            evaluateScalar(into);
+        }
+        return into;
+    }
+
+    private void evaluateScalar(double[] into) {
+        for (int j = 0; j < this.size; j++) {
+            DamageMetadata metadata = this.metadata[j];
+
+            double d = 0;
+            for (int i = 0; i < metadata.size; i++) {
+                d += metadata.finalValue(i);
+            }
+            into[j] = Math.max(DamageMetadata.MINIMAL_DAMAGE, d);
+        }
+    }
+
+    private void evaluateVectorized(DamageKernel kernel, double[] into) {
+        int packets = 0;
+        for (int j = 0; j < this.size; j++) {
+            packets += this.metadata[j].size;
+        }
+        ensureCapacity(packets);
+
+        int offset = 0;
+        for (int j = 0; j < this.size; j++) {
+            DamageMetadata metadata = this.metadata[j];
+            System.arraycopy(metadata.values, 0, this.values, offset, metadata.size);
+            System.arraycopy(metadata.additiveModifiers, 0, this.additiveModifiers, offset, metadata.size);
+            System.arraycopy(metadata.multiplicativeModifiers, 0, this.multiplicativeModifiers, offset, metadata.size);
+            offset += metadata.size;
+        }
+
+        kernel.finalValues(this.values, this.additiveModifiers, this.multiplicativeModifiers, this.finalValues, packets);
+
+        // sum sequentially, vector reductions do not preserve the summation order
+        offset = 0;
+        for (int j = 0; j < this.size; j++) {
+            int end = offset + this.metadata[j].size;
+
+            double d = 0;
+            for (; offset < end; offset++) {
+                d += this.finalValues[offset];
+            }
+            into[j] = Math.max(DamageMetadata.MINIMAL_DAMAGE, d);
+        }
+    }
+
+    private void ensureCapacity(int packets) {
+        if (this.values.length < packets) {
+            int capacity = Math.max(packets, this.values.length << 1);
+            this.values = new double[capacity];
+            this.additiveModifiers = new double[capacity];
+            this.multiplicativeModifiers = new double[capacity];
+            this.finalValues = new double[capacity];
+        }
+    }
+
+    private static @Nullable DamageKernel loadVectorKernel() {
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) {
+            return null;
+        }
+        try {
+            DamageKernel kernel = (DamageKernel) Class.forName(VECTOR_KERNEL_CLASS).getDeclaredConstructor().newInstance();
+            // make sure the kernel can actually be linked
+            kernel.finalValues(new double[1], new double[1], new double[1], new double[1], 1);
+            return kernel;
+        } catch (ReflectiveOperationException | LinkageError e) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package me.kubbidev.laboratory.damage;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+
+/**
+ * The total, per-element and per-type damage of an attack,
+ * computed in a single traversal of its damage packets.
+ * <p>
+ * Breakdowns can be reused across hits through
+ * {@link DamageMetadata#getBreakdown(DamageBreakdown)},
+ * which overwrites every value without allocating.
+ */
+public final class DamageBreakdown {
+    private static final int TYPE_COUNT = DamageType.values().length;
+
+    final ElementalBreakdown elemental = new ElementalBreakdown();
+    final double[] typeDamage = new double[TYPE_COUNT];
+    int typeMask;
+
+    // the sum of every final packet value, before applying the minimal damage
+    double damage;
+
+    /**
+     * Creates an empty breakdown, meant to be filled by
+     * {@link DamageMetadata#getBreakdown(DamageBreakdown)}.
+     */
+    public DamageBreakdown() {
+    }
+
+    /**
+     * @return the total damage, see {@link DamageMetadata#getDamage()}
+     */
+    public double getDamage() {
+        return Math.max(DamageMetadata.MINIMAL_DAMAGE, this.damage);
+    }
+
+    /**
+     * @param element If null, non-elemental damage will be returned.
+     * @return the damage dealt by this element
+     */
+    public double getDamage(@Nullable Element element) {
+        return this.elemental.getDamage(element);
+    }
+
+    /**
+     * @return the damage dealt by packets having this damage type
+     */
+    public double getDamage(DamageType type) {
+        return this.typeDamage[type.ordinal()];
+    }
+
+    /**
+     * @return the damage types found in the damage packets
+     */
+    public DamageTypeSet getTypes() {
+        return DamageTypeSet.fromMask(this.typeMask);
+    }
+
+    /**
+     * @return the per-element part of this breakdown
+     */
+    public ElementalBreakdown getElementalBreakdown() {
+        return this.elemental;
+    }
+
+    /**
+     * @return a copy of this breakdown
+     */
+    public DamageBreakdown copy() {
+        DamageBreakdown copy = new DamageBreakdown();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    void copyFrom(DamageBreakdown other) {
+        this.elemental.copyFrom(other.elemental);
+        System.arraycopy(other.typeDamage, 0, this.typeDamage, 0, this.typeDamage.length);
+        this.typeMask = other.typeMask;
+        this.damage = other.damage;
+    }
+
+    /**
+     * Sums the final value of every packet of the given damage metadata.
+     * <p>
+     * Packets are visited in registration order, so every total is
+     * exactly the same as summing the matching packets one by one.
+     */
+    void compute(DamageMetadata metadata) {
+        compute(metadata.size, metadata.values, metadata.additiveModifiers,
+                metadata.multiplicativeModifiers, metadata.elements, metadata.typeMasks);
+    }
+
+    void compute(int size, double[] values, double[] additiveModifiers, double[] multiplicativeModifiers, byte[] elements, int[] typeMasks) {
+        double[] elementDamage = this.elemental.damage;
+        double[] typeDamage = this.typeDamage;
+        this.elemental.clear();
+        Arrays.fill(typeDamage, 0);
+
+        double d = 0;
+        int elementMask = 0;
+        int typeMask = 0;
+        for (int i = 0; i < size; i++) {
+            double value = DamageMetadata.finalValue(values[i], additiveModifiers[i], multiplicativeModifiers[i]);
+            d += value;
+
+            int index = elements[i] + 1;
+            elementDamage[index] += value;
+            elementMask |= 1 << index;
+
+            int mask = typeMasks[i];
+            typeMask |= mask;
+            for (; mask != 0; mask &= mask - 1) {
+                typeDamage[Integer.numberOfTrailingZeros(mask)] += value;
+            }
+        }
+
+        this.damage = d;
+        this.elemental.elementMask = elementMask;
+        this.typeMask = typeMask;
+    }
+
+    @Override
+    public String toString() {
+        return "DamageBreakdown(" +
+                "damage=" + getDamage() + ", " +
+                "elements=" + this.elemental.asMap() + ", " +
+                "types=" + getTypes() + ")";
+    }
+}
@@ -0,0 +1,14 @@
+package me.kubbidev.laboratory.damage;
+
+/**
+ * Computes the final values of packets laid out contiguously, see {@link DamageBatch}.
+ */
+interface DamageKernel {
+
+    /**
+     * Computes {@code value * max(0, 1 + additive) * multiplicative} for every
+     * packet, performing the exact same operations as
+     * {@link DamageMetadata#finalValue(double, double, double)}.
+     */
+    void finalValues(double[] values, double[] additiveModifiers, double[] multiplicativeModifiers, double[] out, int length);
+}
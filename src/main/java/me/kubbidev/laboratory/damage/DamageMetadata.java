@@ -1,32 +1,93 @@
 package me.kubbidev.laboratory.damage;
 
-import lombok.Getter;
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
-@Getter
+/**
+ * Holds every damage packet of a single attack.
+ * <p>
+ * Packets are not stored as {@link DamagePacket} instances but as a
+ * struct of parallel primitive arrays (values, additive modifiers,
+ * multiplicative modifiers, element ordinals and type masks), so
+ * registering packets, applying modifiers and computing the final
+ * damage never allocate once the arrays are large enough.
+ * <p>
+ * {@link DamagePacket} instances returned by {@link #getPackets()} and
+ * {@link #getInitialPacket()} are lightweight views reading and writing
+ * through to this storage.
+ * <p>
+ * The total, per-element and per-type damage are computed together on
+ * the first query, as a {@link DamageBreakdown}, and memoized until a
+ * packet is actually modified.
+ * <p>
+ * {@link #clone()} and {@link #snapshot()} do not copy packets: the packet
+ * storage is shared until either side modifies a packet, which then copies
+ * the whole storage first.
+ */
 public class DamageMetadata implements Cloneable {
-    private final List<DamagePacket> packets = new ArrayList<>();
+    private static final int DEFAULT_CAPACITY = 4;
+
+    // storage growing past this capacity is dropped on reset
+    private static final int MAX_RETAINED_CAPACITY = 64;
 
     /**
-     * The first damage packet to be registered inside of this damage
-     * metadata. It is usually the most significant (highest value)
-     * or at least the base damage on which all modifiers are then
-     * applied.
-     * <p>
-     * This field is a direct reference of an existing element
-     * of the collection returned by {@link #getPackets()}.
-     * <p>
-     * Although not common, it can be null.
+     * The element ordinal stored for non-elemental packets.
      */
-    private final @Nullable DamagePacket initialPacket;
+    static final byte NO_ELEMENT = -1;
+
+    private static final Element[] ELEMENTS = Element.values();
+
+    // global memoization counters
+    private static final LongAdder CACHE_HITS = new LongAdder();
+    private static final LongAdder CACHE_MISSES = new LongAdder();
+
+    // the number of registered packets
+    int size;
+
+    // packet storage, one slot per packet
+    double[] values;
+    double[] additiveModifiers;
+    double[] multiplicativeModifiers;
+    byte[] elements;
+    int[] typeMasks;
+
+    /**
+     * Whether the packet storage may be referenced by a clone or a snapshot,
+     * in which case it must be copied before being modified.
+     */
+    private boolean shared;
+
+    /**
+     * The slot of the initial packet of this damage metadata, or -1 if
+     * it has none.
+     *
+     * @see #getInitialPacket()
+     */
+    private int initialSlot;
+
+    /**
+     * Whether this damage metadata has been handed back to the {@link DamagePool}.
+     */
+    private boolean released;
+    private @Nullable Throwable releaseSite;
+
+    // memoized damage, valid until a packet is modified
+    private boolean cached;
+    private @Nullable DamageBreakdown breakdown;
+
+    // lazily created packet views, indexed by packet slot
+    private DamagePacket @Nullable [] views;
+    private @Nullable List<DamagePacket> packetList;
 
     /**
      * Used to register an attack with NO initial packet.
      */
     public DamageMetadata() {
-        this.initialPacket = null;
+        this(-1, DEFAULT_CAPACITY);
     }
 
     /**
@@ -47,8 +108,43 @@ public class DamageMetadata implements Cloneable {
      * @param types   The attack damage types
      */
     public DamageMetadata(double damage, @Nullable Element element, DamageType... types) {
-        this.initialPacket = new DamagePacket(damage, element, types);
-        this.packets.add(this.initialPacket);
+        this(damage, element, DamageTypeSet.of(types));
+    }
+
+    /**
+     * Used to register an attack.
+     *
+     * @param damage  The attack damage
+     * @param element If this is an elemental attack
+     * @param types   The attack damage types
+     */
+    public DamageMetadata(double damage, @Nullable Element element, DamageTypeSet types) {
+        this(0, DEFAULT_CAPACITY);
+        // written directly rather than appended, nothing overridable runs during construction
+        this.values[0] = damage;
+        this.multiplicativeModifiers[0] = 1;
+        this.elements[0] = ordinal(element);
+        this.typeMasks[0] = types.mask();
+        this.size = 1;
+    }
+
+    private DamageMetadata(int initialSlot, int capacity) {
+        this.initialSlot = initialSlot;
+        allocate(capacity);
+    }
+
+    /**
+     * Creates a damage metadata sharing the given packet storage, which
+     * is copied on the first modification.
+     */
+    DamageMetadata(int size, double[] values, double[] additiveModifiers, double[] multiplicativeModifiers, byte[] elements, int[] typeMasks) {
+        this.size = size;
+        this.values = values;
+        this.additiveModifiers = additiveModifiers;
+        this.multiplicativeModifiers = multiplicativeModifiers;
+        this.elements = elements;
+        this.typeMasks = typeMasks;
+        this.shared = true;
     }
 
     /**
@@ -59,59 +155,137 @@ public class DamageMetadata implements Cloneable {
      */
     public static final double MINIMAL_DAMAGE = 0.01;
 
-    public double getDamage() {
-        double d = 0;
-
-        for (DamagePacket packet : this.packets) {
-            d += packet.getFinalValue();
+    /**
+     * Returns a live view of the registered damage packets.
+     * <p>
+     * The list supports every operation of a {@link List}. Packets added
+     * or set to the returned list are copied into this damage metadata,
+     * later changes to the given instance are therefore not reflected.
+     * <p>
+     * Packets of the list are views bound to a position rather than to a
+     * packet: once packets are inserted or removed, a view previously
+     * obtained reads and writes the packet now at its position. Copy a
+     * packet with {@link DamagePacket#clone()} to keep it. Replacing or
+     * removing the {@link #getInitialPacket() initial packet} leaves this
+     * damage metadata without one.
+     *
+     * @return the damage packets
+     */
+    public List<DamagePacket> getPackets() {
+        checkLive();
+        if (this.packetList == null) {
+            this.packetList = new PacketList();
         }
-        return Math.max(MINIMAL_DAMAGE, d);
+        return this.packetList;
+    }
+
+    /**
+     * The first damage packet to be registered inside of this damage
+     * metadata. It is usually the most significant (highest value)
+     * or at least the base damage on which all modifiers are then
+     * applied.
+     * <p>
+     * This is a view of an existing element of the collection
+     * returned by {@link #getPackets()}.
+     * <p>
+     * Although not common, it can be null, and is once the initial
+     * packet has been replaced or removed from the collection.
+     *
+     * @return the initial damage packet
+     */
+    public @Nullable DamagePacket getInitialPacket() {
+        checkLive();
+        return this.initialSlot < 0 ? null : packet(this.initialSlot);
+    }
+
+    /**
+     * @return the number of registered damage packets
+     */
+    public int getPacketCount() {
+        checkLive();
+        return this.size;
+    }
+
+    public double getDamage() {
+        checkLive();
+        return computeIfDirty().getDamage();
     }
 
     /**
      * @param element If null, non-elemental damage will be returned.
      */
     public double getDamage(@Nullable Element element) {
-        double d = 0;
-
-        for (DamagePacket packet : this.packets) {
-            if (Objects.equals(packet.getElement(), element))
-                d += packet.getFinalValue();
-        }
-        return d;
+        checkLive();
+        return computeIfDirty().getDamage(element);
     }
 
     public double getDamage(DamageType type) {
-        double d = 0;
-
-        for (DamagePacket packet : this.packets) {
-            if (packet.hasType(type))
-                d += packet.getFinalValue();
-        }
-        return d;
+        checkLive();
+        return computeIfDirty().getDamage(type);
     }
 
     public Map<Element, Double> mapElementalDamage() {
-        Map<Element, Double> mapped = new HashMap<>();
+        checkLive();
+        return new HashMap<>(computeIfDirty().getElementalBreakdown().asMap());
+    }
 
-        for (DamagePacket packet : this.packets) {
-            if (packet.getElement() != null)
-                mapped.put(packet.getElement(), mapped.getOrDefault(packet.getElement(), 0d) + packet.getFinalValue());
-        }
-        return mapped;
+    /**
+     * @return a new breakdown of the damage dealt by each element
+     */
+    public ElementalBreakdown getElementalBreakdown() {
+        checkLive();
+        return computeIfDirty().getElementalBreakdown().copy();
+    }
+
+    /**
+     * Fills the given breakdown with the damage dealt by each element.
+     *
+     * @param into the breakdown to overwrite
+     * @return the given breakdown
+     */
+    public ElementalBreakdown getElementalBreakdown(ElementalBreakdown into) {
+        checkLive();
+        into.copyFrom(computeIfDirty().getElementalBreakdown());
+        return into;
+    }
+
+    /**
+     * @return a new breakdown of the total, per-element and per-type damage
+     */
+    public DamageBreakdown getBreakdown() {
+        checkLive();
+        return computeIfDirty().copy();
+    }
+
+    /**
+     * Fills the given breakdown with the total, per-element and per-type damage.
+     * <p>
+     * This is the allocation free equivalent of {@link #getBreakdown()}.
+     *
+     * @param into the breakdown to overwrite
+     * @return the given breakdown
+     */
+    public DamageBreakdown getBreakdown(DamageBreakdown into) {
+        checkLive();
+        into.copyFrom(computeIfDirty());
+        return into;
     }
 
     /**
      * @return Set containing all the damage types found
      * in all the different damage packets.
      */
-    public Set<DamageType> collectTypes() {
-        Set<DamageType> collected = new HashSet<>();
+    public DamageTypeSet collectTypes() {
+        checkLive();
+        return DamageTypeSet.fromMask(collectTypeMask());
+    }
 
-        for (DamagePacket packet : this.packets) {
-            Collections.addAll(collected, packet.getTypes());
+    private int collectTypeMask() {
+        int mask = 0;
+        for (int i = 0; i < this.size; i++) {
+            mask |= this.typeMasks[i];
         }
-        return collected;
+        return mask;
     }
 
     /**
@@ -119,11 +293,13 @@ public class DamageMetadata implements Cloneable {
      * in all the different damage packets.
      */
     public Set<Element> collectElements() {
-        Set<Element> collected = new HashSet<>();
+        checkLive();
+        Set<Element> collected = EnumSet.noneOf(Element.class);
 
-        for (DamagePacket packet : this.packets) {
-            if (packet.getElement() != null)
-                collected.add(packet.getElement());
+        for (int i = 0; i < this.size; i++) {
+            Element element = element(i);
+            if (element != null)
+                collected.add(element);
         }
         return collected;
     }
@@ -133,21 +309,47 @@ public class DamageMetadata implements Cloneable {
      * see if any has this damage type.
      */
     public boolean hasType(DamageType type) {
-        for (DamagePacket packet : this.packets) {
-            if (packet.hasType(type))
+        checkLive();
+        return hasAnyType(DamageTypeSet.mask(type));
+    }
+
+    /**
+     * @return Iterates through all registered damage packets and
+     * see if any has at least one of these damage types.
+     */
+    public boolean hasAnyType(DamageTypeSet types) {
+        checkLive();
+        return hasAnyType(types.mask());
+    }
+
+    private boolean hasAnyType(int mask) {
+        for (int i = 0; i < this.size; i++) {
+            if ((this.typeMasks[i] & mask) != 0)
                 return true;
         }
         return false;
     }
 
+    /**
+     * @return Checks if every one of these damage types can be
+     * found in at least one of the registered damage packets.
+     */
+    public boolean hasAllTypes(DamageTypeSet types) {
+        checkLive();
+        return (collectTypeMask() & types.mask()) == types.mask();
+    }
+
     /**
      * @param element If null, will return true if it has non-elemental damage.
      * @return Iterates through all registered damage packets and
      * see if any has this element.
      */
     public boolean hasElement(@Nullable Element element) {
-        for (DamagePacket packet : this.packets) {
-            if (Objects.equals(packet.getElement(), element))
+        checkLive();
+        byte ordinal = ordinal(element);
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.elements[i] == ordinal)
                 return true;
         }
         return false;
@@ -162,7 +364,22 @@ public class DamageMetadata implements Cloneable {
      * @return The same modified damage metadata
      */
     public DamageMetadata add(double value, DamageType... types) {
-        this.packets.add(new DamagePacket(value, types));
+        checkLive();
+        append(value, 0, 1, NO_ELEMENT, DamageTypeSet.mask(types));
+        return this;
+    }
+
+    /**
+     * Registers a new damage packet.
+     *
+     * @param value Damage dealt by another source, this could be an on-hit
+     *              skill increasing the damage of the current attack.
+     * @param types The damage types of the packet being registered
+     * @return The same modified damage metadata
+     */
+    public DamageMetadata add(double value, DamageTypeSet types) {
+        checkLive();
+        append(value, 0, 1, NO_ELEMENT, types.mask());
         return this;
     }
 
@@ -176,7 +393,23 @@ public class DamageMetadata implements Cloneable {
      * @return The same modified damage metadata
      */
     public DamageMetadata add(double value, @Nullable Element element, DamageType... types) {
-        this.packets.add(new DamagePacket(value, element, types));
+        checkLive();
+        append(value, 0, 1, ordinal(element), DamageTypeSet.mask(types));
+        return this;
+    }
+
+    /**
+     * Registers a new elemental damage packet.
+     *
+     * @param value   Damage dealt by another source, this could be an on-hit
+     *                skill increasing the damage of the current attack.
+     * @param element The element
+     * @param types   The damage types of the packet being registered
+     * @return The same modified damage metadata
+     */
+    public DamageMetadata add(double value, @Nullable Element element, DamageTypeSet types) {
+        checkLive();
+        append(value, 0, 1, ordinal(element), types.mask());
         return this;
     }
 
@@ -191,8 +424,9 @@ public class DamageMetadata implements Cloneable {
      * @return The same damage metadata
      */
     public DamageMetadata multiplicativeModifier(double coefficient) {
-        for (DamagePacket packet : this.packets) {
-            packet.multiplicativeModifier(coefficient);
+        checkLive();
+        for (int i = 0; i < this.size; i++) {
+            multiply(i, coefficient);
         }
         return this;
     }
@@ -206,8 +440,9 @@ public class DamageMetadata implements Cloneable {
      * @return The same damage metadata
      */
     public DamageMetadata additiveModifier(double multiplier) {
-        for (DamagePacket packet : this.packets) {
-            packet.additiveModifier(multiplier);
+        checkLive();
+        for (int i = 0; i < this.size; i++) {
+            addModifier(i, multiplier);
         }
         return this;
     }
@@ -221,9 +456,12 @@ public class DamageMetadata implements Cloneable {
      * @return The same damage metadata
      */
     public DamageMetadata multiplicativeModifier(double coefficient, DamageType damageType) {
-        for (DamagePacket packet : this.packets) {
-            if (packet.hasType(damageType))
-                packet.multiplicativeModifier(coefficient);
+        checkLive();
+        int mask = DamageTypeSet.mask(damageType);
+
+        for (int i = 0; i < this.size; i++) {
+            if ((this.typeMasks[i] & mask) != 0)
+                multiply(i, coefficient);
         }
         return this;
     }
@@ -237,9 +475,12 @@ public class DamageMetadata implements Cloneable {
      * @return The same damage metadata
      */
     public DamageMetadata multiplicativeModifier(double coefficient, @Nullable Element element) {
-        for (DamagePacket packet : this.packets) {
-            if (Objects.equals(packet.getElement(), element))
-                packet.multiplicativeModifier(coefficient);
+        checkLive();
+        byte ordinal = ordinal(element);
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.elements[i] == ordinal)
+                multiply(i, coefficient);
         }
         return this;
     }
@@ -254,9 +495,12 @@ public class DamageMetadata implements Cloneable {
      * @return The same damage metadata
      */
     public DamageMetadata additiveModifier(double multiplier, DamageType damageType) {
-        for (DamagePacket packet : this.packets) {
-            if (packet.hasType(damageType))
-                packet.additiveModifier(multiplier);
+        checkLive();
+        int mask = DamageTypeSet.mask(damageType);
+
+        for (int i = 0; i < this.size; i++) {
+            if ((this.typeMasks[i] & mask) != 0)
+                addModifier(i, multiplier);
         }
         return this;
     }
@@ -270,22 +514,543 @@ public class DamageMetadata implements Cloneable {
      * @return The same damage metadata
      */
     public DamageMetadata additiveModifier(double coefficient, Element element) {
-        for (DamagePacket packet : this.packets) {
-            if (Objects.equals(packet.getElement(), element))
-                packet.additiveModifier(coefficient);
+        checkLive();
+        byte ordinal = ordinal(element);
+
+        for (int i = 0; i < this.size; i++) {
+            if (this.elements[i] == ordinal)
+                addModifier(i, coefficient);
         }
         return this;
     }
 
+    /**
+     * Applies every modifier of a pipeline in a single pass.
+     *
+     * @param pipeline the modifiers to apply
+     * @return The same damage metadata
+     * @see DamageModifierPipeline#apply(DamageMetadata)
+     */
+    public DamageMetadata modifiers(DamageModifierPipeline pipeline) {
+        return pipeline.apply(this);
+    }
+
+    /**
+     * Creates a copy of this damage metadata, with no initial packet.
+     * <p>
+     * Packets are not copied right away: both damage metadata share the
+     * packet storage until one of them modifies a packet. Cloning, and
+     * reading from a clone, is therefore cheap.
+     *
+     * @return a copy of this damage metadata
+     */
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     public DamageMetadata clone() {
-        DamageMetadata clone = new DamageMetadata();
+        checkLive();
+        this.shared = true;
+        return new DamageMetadata(this.size, this.values, this.additiveModifiers,
+                this.multiplicativeModifiers, this.elements, this.typeMasks);
+    }
+
+    /**
+     * Returns an immutable snapshot of the current packets of this damage metadata.
+     * <p>
+     * The snapshot shares the packet storage, which this damage metadata
+     * copies before its next modification. Snapshots can be freely
+     * published to other threads.
+     *
+     * @return a snapshot of this damage metadata
+     */
+    public DamageSnapshot snapshot() {
+        checkLive();
+        this.shared = true;
+        return new DamageSnapshot(this.size, this.values, this.additiveModifiers,
+                this.multiplicativeModifiers, this.elements, this.typeMasks);
+    }
 
-        for (DamagePacket packet : this.packets) {
-            clone.packets.add(packet.clone());
+    /**
+     * Clears every registered damage packet, returning this damage
+     * metadata to the state of one created with no initial packet.
+     * <p>
+     * The packet storage is kept, so registering packets again does
+     * not allocate.
+     */
+    public void reset() {
+        checkLive();
+        this.size = 0;
+        this.initialSlot = -1;
+        this.cached = false;
+        if (this.values.length > MAX_RETAINED_CAPACITY) {
+            allocate(DEFAULT_CAPACITY);
+            this.views = null;
+        } else if (this.shared) {
+            // the previous packets are still referenced elsewhere
+            allocate(this.values.length);
         }
-        return clone;
     }
 
-}
\ No newline at end of file
+    /**
+     * Resets this damage metadata and registers its initial packet.
+     */
+    void reset(double damage, byte element, int typeMask) {
+        reset();
+        this.initialSlot = 0;
+        append(damage, 0, 1, element, typeMask);
+    }
+
+    /**
+     * Replaces the packets of this damage metadata by copies of the other's packets.
+     */
+    void copyFrom(DamageMetadata other) {
+        other.checkLive();
+        reset();
+        if (this.values.length < other.size) {
+            allocate(other.size);
+            this.views = null;
+        }
+        System.arraycopy(other.values, 0, this.values, 0, other.size);
+        System.arraycopy(other.additiveModifiers, 0, this.additiveModifiers, 0, other.size);
+        System.arraycopy(other.multiplicativeModifiers, 0, this.multiplicativeModifiers, 0, other.size);
+        System.arraycopy(other.elements, 0, this.elements, 0, other.size);
+        System.arraycopy(other.typeMasks, 0, this.typeMasks, 0, other.size);
+        this.size = other.size;
+        this.cached = false;
+    }
+
+    void markReleased() {
+        if (this.released) {
+            throw new IllegalStateException("Damage metadata has already been released", this.releaseSite);
+        }
+        this.released = true;
+        if (DamagePool.DEBUG) {
+            this.releaseSite = new Throwable("Released here");
+        }
+    }
+
+    void markAcquired() {
+        this.released = false;
+        this.releaseSite = null;
+    }
+
+    /**
+     * Fails if this damage metadata is used after being released to the
+     * {@link DamagePool}. Only checked when the pool debug mode is enabled.
+     */
+    void checkLive() {
+        if (DamagePool.DEBUG && this.released) {
+            throw new IllegalStateException("Damage metadata used after being released", this.releaseSite);
+        }
+    }
+
+    /**
+     * Returns the global memoization counters of every damage metadata.
+     *
+     * @return the memoization counters
+     */
+    public static CacheStats getCacheStats() {
+        return new CacheStats(CACHE_HITS.sum(), CACHE_MISSES.sum());
+    }
+
+    /**
+     * Resets the global memoization counters.
+     */
+    public static void resetCacheStats() {
+        CACHE_HITS.reset();
+        CACHE_MISSES.reset();
+    }
+
+    /**
+     * Memoization counters of damage queries.
+     *
+     * @param hits   the number of queries answered from memoized damage
+     * @param misses the number of queries which had to sum the packets
+     */
+    public record CacheStats(long hits, long misses) {
+
+        /**
+         * @return the ratio of queries answered from memoized damage, from 0 to 1
+         */
+        public double hitRate() {
+            long requests = this.hits + this.misses;
+            return requests == 0 ? 1 : (double) this.hits / requests;
+        }
+    }
+
+    /**
+     * Sums the final value of every packet, per element and per type,
+     * unless already done since the last modification.
+     *
+     * @return the memoized breakdown
+     */
+    private DamageBreakdown computeIfDirty() {
+        DamageBreakdown breakdown = this.breakdown;
+        if (this.cached && breakdown != null) {
+            CACHE_HITS.increment();
+            return breakdown;
+        }
+        CACHE_MISSES.increment();
+
+        if (breakdown == null) {
+            breakdown = this.breakdown = new DamageBreakdown();
+        }
+        breakdown.compute(this);
+        this.cached = true;
+        return breakdown;
+    }
+
+    /* packet storage */
+
+    /**
+     * Same as {@link DamagePacket#getFinalValue()} for the packet stored at the given slot.
+     */
+    double finalValue(int i) {
+        return finalValue(this.values[i], this.additiveModifiers[i], this.multiplicativeModifiers[i]);
+    }
+
+    static double finalValue(double value, double additiveModifiers, double multiplicativeModifiers) {
+        // Make sure the returned value is positive
+        return value * Math.max(0, 1 + additiveModifiers) * multiplicativeModifiers;
+    }
+
+    void invalidate() {
+        this.cached = false;
+    }
+
+    /**
+     * Copies the packet storage if it is shared, must be called
+     * before modifying any packet in place.
+     */
+    void ensureWritable() {
+        if (this.shared) {
+            grow(this.values.length);
+        }
+    }
+
+    void multiply(int i, double coefficient) {
+        Preconditions.checkArgument(coefficient >= 0, "Coefficient cannot be negative");
+        if (coefficient != 1) {
+            ensureWritable();
+            this.multiplicativeModifiers[i] *= coefficient;
+            this.cached = false;
+        }
+    }
+
+    void addModifier(int i, double multiplier) {
+        if (multiplier != 0) {
+            ensureWritable();
+            this.additiveModifiers[i] += multiplier;
+            this.cached = false;
+        }
+    }
+
+    @Nullable Element element(int i) {
+        byte ordinal = this.elements[i];
+        return ordinal == NO_ELEMENT ? null : ELEMENTS[ordinal];
+    }
+
+    void append(double value, double additive, double multiplicative, byte element, int typeMask) {
+        if (this.size == this.values.length) {
+            grow(this.size << 1);
+        } else {
+            ensureWritable();
+        }
+        int i = this.size++;
+        this.cached = false;
+        this.values[i] = value;
+        this.additiveModifiers[i] = additive;
+        this.multiplicativeModifiers[i] = multiplicative;
+        this.elements[i] = element;
+        this.typeMasks[i] = typeMask;
+    }
+
+    /**
+     * Inserts a packet at the given slot, shifting the following ones.
+     */
+    void insert(int index, double value, double additive, double multiplicative, byte element, int typeMask) {
+        if (index == this.size) {
+            append(value, additive, multiplicative, element, typeMask);
+            return;
+        }
+        if (this.size == this.values.length) {
+            grow(this.size << 1);
+        } else {
+            ensureWritable();
+        }
+        int moved = this.size - index;
+        System.arraycopy(this.values, index, this.values, index + 1, moved);
+        System.arraycopy(this.additiveModifiers, index, this.additiveModifiers, index + 1, moved);
+        System.arraycopy(this.multiplicativeModifiers, index, this.multiplicativeModifiers, index + 1, moved);
+        System.arraycopy(this.elements, index, this.elements, index + 1, moved);
+        System.arraycopy(this.typeMasks, index, this.typeMasks, index + 1, moved);
+        this.size++;
+        this.values[index] = value;
+        this.additiveModifiers[index] = additive;
+        this.multiplicativeModifiers[index] = multiplicative;
+        this.elements[index] = element;
+        this.typeMasks[index] = typeMask;
+        this.cached = false;
+        if (this.initialSlot >= index) {
+            this.initialSlot++;
+        }
+    }
+
+    /**
+     * Overwrites the packet stored at the given slot.
+     */
+    void replace(int index, double value, double additive, double multiplicative, byte element, int typeMask) {
+        ensureWritable();
+        this.values[index] = value;
+        this.additiveModifiers[index] = additive;
+        this.multiplicativeModifiers[index] = multiplicative;
+        this.elements[index] = element;
+        this.typeMasks[index] = typeMask;
+        this.cached = false;
+        if (this.initialSlot == index) {
+            this.initialSlot = -1;
+        }
+    }
+
+    /**
+     * Removes the packets stored from one slot, inclusive, to another, exclusive,
+     * shifting the following ones.
+     */
+    void delete(int from, int to) {
+        if (from == to) {
+            return;
+        }
+        ensureWritable();
+        int moved = this.size - to;
+        System.arraycopy(this.values, to, this.values, from, moved);
+        System.arraycopy(this.additiveModifiers, to, this.additiveModifiers, from, moved);
+        System.arraycopy(this.multiplicativeModifiers, to, this.multiplicativeModifiers, from, moved);
+        System.arraycopy(this.elements, to, this.elements, from, moved);
+        System.arraycopy(this.typeMasks, to, this.typeMasks, from, moved);
+        this.size -= to - from;
+        this.cached = false;
+        if (this.initialSlot >= to) {
+            this.initialSlot -= to - from;
+        } else if (this.initialSlot >= from) {
+            this.initialSlot = -1;
+        }
+    }
+
+    private void allocate(int capacity) {
+        this.values = new double[capacity];
+        this.additiveModifiers = new double[capacity];
+        this.multiplicativeModifiers = new double[capacity];
+        this.elements = new byte[capacity];
+        this.typeMasks = new int[capacity];
+        this.shared = false;
+    }
+
+    private void grow(int capacity) {
+        this.values = Arrays.copyOf(this.values, capacity);
+        this.additiveModifiers = Arrays.copyOf(this.additiveModifiers, capacity);
+        this.multiplicativeModifiers = Arrays.copyOf(this.multiplicativeModifiers, capacity);
+        this.elements = Arrays.copyOf(this.elements, capacity);
+        this.typeMasks = Arrays.copyOf(this.typeMasks, capacity);
+        this.shared = false;
+    }
+
+    private DamagePacket packet(int i) {
+        if (this.views == null || this.views.length <= i) {
+            this.views = Arrays.copyOf(this.views == null ? new DamagePacket[0] : this.views, this.values.length);
+        }
+        DamagePacket view = this.views[i];
+        if (view == null) {
+            view = this.views[i] = new PacketView(i);
+        }
+        return view;
+    }
+
+    static byte ordinal(@Nullable Element element) {
+        return element == null ? NO_ELEMENT : (byte) element.ordinal();
+    }
+
+    /**
+     * List view over the packet storage.
+     */
+    private final class PacketList extends AbstractList<DamagePacket> implements RandomAccess {
+
+        @Override
+        public DamagePacket get(int index) {
+            checkLive();
+            Objects.checkIndex(index, DamageMetadata.this.size);
+            return packet(index);
+        }
+
+        @Override
+        public boolean add(@NotNull DamagePacket packet) {
+            checkLive();
+            this.modCount++;
+            append(packet.getValue(),
+                    packet.getAdditiveModifiers(),
+                    packet.getMultiplicativeModifiers(),
+                    ordinal(packet.getElement()),
+                    packet.getTypeMask());
+            return true;
+        }
+
+        @Override
+        public void add(int index, @NotNull DamagePacket packet) {
+            checkLive();
+            Objects.checkIndex(index, DamageMetadata.this.size + 1);
+            this.modCount++;
+            insert(index,
+                    packet.getValue(),
+                    packet.getAdditiveModifiers(),
+                    packet.getMultiplicativeModifiers(),
+                    ordinal(packet.getElement()),
+                    packet.getTypeMask());
+        }
+
+        /**
+         * Overwrites the packet at the given position, returning a copy of the previous one.
+         */
+        @Override
+        public DamagePacket set(int index, @NotNull DamagePacket packet) {
+            checkLive();
+            Objects.checkIndex(index, DamageMetadata.this.size);
+            DamagePacket previous = packet(index).clone();
+            replace(index,
+                    packet.getValue(),
+                    packet.getAdditiveModifiers(),
+                    packet.getMultiplicativeModifiers(),
+                    ordinal(packet.getElement()),
+                    packet.getTypeMask());
+            return previous;
+        }
+
+        /**
+         * Removes the packet at the given position, returning a copy of it.
+         */
+        @Override
+        public DamagePacket remove(int index) {
+            checkLive();
+            Objects.checkIndex(index, DamageMetadata.this.size);
+            DamagePacket removed = packet(index).clone();
+            this.modCount++;
+            delete(index, index + 1);
+            return removed;
+        }
+
+        @Override
+        protected void removeRange(int fromIndex, int toIndex) {
+            checkLive();
+            this.modCount++;
+            delete(fromIndex, toIndex);
+        }
+
+        @Override
+        public int size() {
+            return DamageMetadata.this.size;
+        }
+    }
+
+    /**
+     * A damage packet reading and writing through to a slot of the packet storage.
+     */
+    private final class PacketView extends DamagePacket {
+        private final int index;
+
+        PacketView(int index) {
+            super(0);
+            this.index = index;
+        }
+
+        private int slot() {
+            checkLive();
+            return this.index;
+        }
+
+        @Override
+        int getTypeMask() {
+            return DamageMetadata.this.typeMasks[slot()];
+        }
+
+        @Override
+        void setTypeMask(int typeMask) {
+            int i = slot();
+            if (DamageMetadata.this.typeMasks[i] != typeMask) {
+                ensureWritable();
+                DamageMetadata.this.typeMasks[i] = typeMask;
+                DamageMetadata.this.cached = false;
+            }
+        }
+
+        @Override
+        public double getValue() {
+            return DamageMetadata.this.values[slot()];
+        }
+
+        @Override
+        public void setValue(double value) {
+            Preconditions.checkArgument(value >= 0, "Value cannot be negative");
+            int i = slot();
+            if (DamageMetadata.this.values[i] != value) {
+                ensureWritable();
+                DamageMetadata.this.values[i] = value;
+                DamageMetadata.this.cached = false;
+            }
+        }
+
+        @Override
+        double getAdditiveModifiers() {
+            return DamageMetadata.this.additiveModifiers[slot()];
+        }
+
+        @Override
+        double getMultiplicativeModifiers() {
+            return DamageMetadata.this.multiplicativeModifiers[slot()];
+        }
+
+        @Override
+        public @Nullable Element getElement() {
+            return element(slot());
+        }
+
+        @Override
+        public void setElement(@Nullable Element element) {
+            int i = slot();
+            byte ordinal = ordinal(element);
+            if (DamageMetadata.this.elements[i] != ordinal) {
+                ensureWritable();
+                DamageMetadata.this.elements[i] = ordinal;
+                DamageMetadata.this.cached = false;
+            }
+        }
+
+        @Override
+        public void multiplicativeModifier(double coefficient) {
+            multiply(slot(), coefficient);
+        }
+
+        @Override
+        public void additiveModifier(double multiplier) {
+            addModifier(slot(), multiplier);
+        }
+
+        @Override
+        public double getFinalValue() {
+            return finalValue(slot());
+        }
+
+        @Override
+        void reset(double value, @Nullable Element element, int typeMask) {
+            int i = slot();
+            ensureWritable();
+            DamageMetadata.this.values[i] = value;
+            DamageMetadata.this.additiveModifiers[i] = 0;
+            DamageMetadata.this.multiplicativeModifiers[i] = 1;
+            DamageMetadata.this.elements[i] = ordinal(element);
+            DamageMetadata.this.typeMasks[i] = typeMask;
+            DamageMetadata.this.cached = false;
+        }
+
+        @Override
+        public DamagePacket clone() {
+            return new DamagePacket(getValue(), getAdditiveModifiers(), getMultiplicativeModifiers(), getElement(), getTypeMask());
+        }
+    }
+}
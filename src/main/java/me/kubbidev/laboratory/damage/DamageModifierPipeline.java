@@ -0,0 +1,276 @@
+package me.kubbidev.laboratory.damage;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * An immutable, reusable list of damage modifiers applied to
+ * a {@link DamageMetadata} in a single pass over its packets.
+ * <p>
+ * Applying a pipeline gives exactly the same result as calling the
+ * equivalent {@link DamageMetadata} modifier methods one by one, in
+ * the order they were registered in the {@link Builder}.
+ * <p>
+ * Modifiers are grouped by the packets they apply to: for every
+ * combination of element and damage types a packet can have, the
+ * matching modifiers are folded into one additive and one multiplicative
+ * modifier the first time such a packet is seen. The cost of applying
+ * a pipeline to a hit therefore depends on the number of packets, not
+ * on the number of modifiers.
+ * <p>
+ * Pipelines are safe to share between threads.
+ */
+public final class DamageModifierPipeline {
+
+    /**
+     * Creates a new pipeline builder.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    // number of distinct type masks, used as the stride between elements
+    private static final int TYPE_MASKS = DamageTypeSet.ALL_MASK + 1;
+    private static final int ELEMENT_COUNT = Element.values().length;
+
+    private final Modifier[] modifiers;
+
+    // folded modifiers, indexed by packet signature
+    private final AtomicReferenceArray<Folded> folded;
+
+    private DamageModifierPipeline(List<Modifier> modifiers) {
+        this.modifiers = modifiers.toArray(new Modifier[0]);
+        this.folded = new AtomicReferenceArray<>((ELEMENT_COUNT + 1) * TYPE_MASKS);
+    }
+
+    /**
+     * @return the number of modifiers registered in this pipeline
+     */
+    public int size() {
+        return this.modifiers.length;
+    }
+
+    /**
+     * Applies every modifier of this pipeline to the given damage metadata.
+     *
+     * @param metadata the damage metadata
+     * @return the same damage metadata
+     */
+    public DamageMetadata apply(DamageMetadata metadata) {
+        metadata.checkLive();
+        if (this.modifiers.length == 0) {
+            return metadata;
+        }
+
+        boolean modified = false;
+        for (int i = 0; i < metadata.size; i++) {
+            Folded folded = fold(metadata.elements[i], metadata.typeMasks[i]);
+            if (folded.isNeutral()) {
+                continue;
+            }
+            if (!modified) {
+                metadata.ensureWritable();
+                modified = true;
+            }
+            folded.apply(metadata.additiveModifiers, metadata.multiplicativeModifiers, i);
+        }
+        if (modified) {
+            metadata.invalidate();
+        }
+        return metadata;
+    }
+
+    private Folded fold(byte element, int typeMask) {
+        int signature = (element + 1) * TYPE_MASKS + typeMask;
+
+        Folded folded = this.folded.get(signature);
+        if (folded == null) {
+            // computing the same signature concurrently is harmless, both results are equal
+            folded = Folded.of(this.modifiers, element, typeMask);
+            this.folded.set(signature, folded);
+        }
+        return folded;
+    }
+
+    /**
+     * A single modifier, applying to any packet, to packets having any
+     * damage type of a mask or to packets of a specific element.
+     */
+    private record Modifier(boolean additive, double value, int typeMask, byte element, boolean global) {
+
+        boolean matches(byte element, int typeMask) {
+            if (this.global) {
+                return true;
+            }
+            return this.typeMask != 0
+                    ? (this.typeMask & typeMask) != 0
+                    : this.element == element;
+        }
+    }
+
+    /**
+     * Modifiers matching a packet signature.
+     * <p>
+     * Summing the additive modifiers, or multiplying the multiplicative
+     * ones, in registration order gives a single value which can be
+     * added to a fresh packet (or multiplied with) without any rounding
+     * difference. Packets already carrying modifiers apply them one by
+     * one instead, to stay exact.
+     */
+    private static final class Folded {
+        private static final double[] NONE = new double[0];
+
+        private final double[] additives;
+        private final double[] coefficients;
+        private final double additive;
+        private final double coefficient;
+
+        private Folded(double[] additives, double[] coefficients) {
+            this.additives = additives;
+            this.coefficients = coefficients;
+
+            double additive = 0;
+            for (double value : additives) {
+                additive += value;
+            }
+            double coefficient = 1;
+            for (double value : coefficients) {
+                coefficient *= value;
+            }
+            this.additive = additive;
+            this.coefficient = coefficient;
+        }
+
+        static Folded of(Modifier[] modifiers, byte element, int typeMask) {
+            List<Double> additives = new ArrayList<>();
+            List<Double> coefficients = new ArrayList<>();
+
+            for (Modifier modifier : modifiers) {
+                if (!modifier.matches(element, typeMask)) {
+                    continue;
+                }
+                // neutral modifiers leave packets untouched
+                if (modifier.additive && modifier.value != 0) {
+                    additives.add(modifier.value);
+                } else if (!modifier.additive && modifier.value != 1) {
+                    coefficients.add(modifier.value);
+                }
+            }
+            return new Folded(toArray(additives), toArray(coefficients));
+        }
+
+        private static double[] toArray(List<Double> values) {
+            if (values.isEmpty()) {
+                return NONE;
+            }
+
+            double[] array = new double[values.size()];
+            for (int i = 0; i < array.length; i++) {
+                array[i] = values.get(i);
+            }
+            return array;
+        }
+
+        /**
+         * @return true if these modifiers leave packets untouched
+         */
+        boolean isNeutral() {
+            return this.additives.length == 0 && this.coefficients.length == 0;
+        }
+
+        void apply(double[] additiveModifiers, double[] multiplicativeModifiers, int i) {
+            if (this.additives.length == 1 || (this.additives.length > 1 && additiveModifiers[i] == 0)) {
+                additiveModifiers[i] += this.additive;
+            } else {
+                for (double value : this.additives) {
+                    additiveModifiers[i] += value;
+                }
+            }
+
+            if (this.coefficients.length == 1 || (this.coefficients.length > 1 && multiplicativeModifiers[i] == 1)) {
+                multiplicativeModifiers[i] *= this.coefficient;
+            } else {
+                for (double value : this.coefficients) {
+                    multiplicativeModifiers[i] *= value;
+                }
+            }
+        }
+    }
+
+    /**
+     * Collects modifiers, in the order they should be applied.
+     * <p>
+     * Every method mirrors the {@link DamageMetadata} method of the same name.
+     */
+    public static final class Builder {
+        private final List<Modifier> modifiers = new ArrayList<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @see DamageMetadata#multiplicativeModifier(double)
+         */
+        public Builder multiplicativeModifier(double coefficient) {
+            checkCoefficient(coefficient);
+            this.modifiers.add(new Modifier(false, coefficient, 0, DamageMetadata.NO_ELEMENT, true));
+            return this;
+        }
+
+        /**
+         * @see DamageMetadata#multiplicativeModifier(double, DamageType)
+         */
+        public Builder multiplicativeModifier(double coefficient, DamageType damageType) {
+            checkCoefficient(coefficient);
+            this.modifiers.add(new Modifier(false, coefficient, DamageTypeSet.mask(damageType), DamageMetadata.NO_ELEMENT, false));
+            return this;
+        }
+
+        /**
+         * @see DamageMetadata#multiplicativeModifier(double, Element)
+         */
+        public Builder multiplicativeModifier(double coefficient, @Nullable Element element) {
+            checkCoefficient(coefficient);
+            this.modifiers.add(new Modifier(false, coefficient, 0, DamageMetadata.ordinal(element), false));
+            return this;
+        }
+
+        /**
+         * @see DamageMetadata#additiveModifier(double)
+         */
+        public Builder additiveModifier(double multiplier) {
+            this.modifiers.add(new Modifier(true, multiplier, 0, DamageMetadata.NO_ELEMENT, true));
+            return this;
+        }
+
+        /**
+         * @see DamageMetadata#additiveModifier(double, DamageType)
+         */
+        public Builder additiveModifier(double multiplier, DamageType damageType) {
+            this.modifiers.add(new Modifier(true, multiplier, DamageTypeSet.mask(damageType), DamageMetadata.NO_ELEMENT, false));
+            return this;
+        }
+
+        /**
+         * @see DamageMetadata#additiveModifier(double, Element)
+         */
+        public Builder additiveModifier(double multiplier, @Nullable Element element) {
+            this.modifiers.add(new Modifier(true, multiplier, 0, DamageMetadata.ordinal(element), false));
+            return this;
+        }
+
+        public DamageModifierPipeline build() {
+            return new DamageModifierPipeline(this.modifiers);
+        }
+
+        private static void checkCoefficient(double coefficient) {
+            Preconditions.checkArgument(coefficient >= 0, "Coefficient cannot be negative");
+        }
+    }
+}
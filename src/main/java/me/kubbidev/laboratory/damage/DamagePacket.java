@@ -1,32 +1,93 @@
 package me.kubbidev.laboratory.damage;
 
 import com.google.common.base.Preconditions;
-import lombok.Getter;
-import lombok.Setter;
 import org.jetbrains.annotations.Nullable;
 
 public class DamagePacket implements Cloneable {
 
-    @Getter
-    @Setter
-    private DamageType[] types;
+    /**
+     * The damage types of this packet, encoded as a {@link DamageTypeSet} mask.
+     */
+    private int typeMask;
 
-    @Getter
     private double value;
     private double additiveModifiers;
     private double multiplicativeModifiers = 1;
 
-    @Getter
-    @Setter
     private @Nullable Element element;
 
+    /**
+     * Whether this damage packet has been handed back to the {@link DamagePool}.
+     */
+    private boolean released;
+    private @Nullable Throwable releaseSite;
+
     public DamagePacket(double value, DamageType... types) {
         this(value, null, types);
     }
 
     public DamagePacket(double value, @Nullable Element element, DamageType... types) {
+        this(value, element, DamageTypeSet.of(types));
+    }
+
+    public DamagePacket(double value, @Nullable Element element, DamageTypeSet types) {
         this.value = value;
-        this.types = types;
+        this.typeMask = types.mask();
+        this.element = element;
+    }
+
+    DamagePacket(double value, double additiveModifiers, double multiplicativeModifiers, @Nullable Element element, int typeMask) {
+        this.value = value;
+        this.additiveModifiers = additiveModifiers;
+        this.multiplicativeModifiers = multiplicativeModifiers;
+        this.element = element;
+        this.typeMask = typeMask;
+    }
+
+    /**
+     * @return a new array holding the damage types of this packet
+     */
+    public DamageType[] getTypes() {
+        return getTypeSet().toTypeArray();
+    }
+
+    public void setTypes(DamageType... types) {
+        setTypeMask(DamageTypeSet.mask(types));
+    }
+
+    /**
+     * @return the damage types of this packet
+     */
+    public DamageTypeSet getTypeSet() {
+        return DamageTypeSet.fromMask(getTypeMask());
+    }
+
+    public void setTypeSet(DamageTypeSet types) {
+        setTypeMask(types.mask());
+    }
+
+    int getTypeMask() {
+        checkLive();
+        return this.typeMask;
+    }
+
+    void setTypeMask(int typeMask) {
+        checkLive();
+        this.typeMask = typeMask;
+    }
+
+    public double getValue() {
+        checkLive();
+        return this.value;
+    }
+
+    public @Nullable Element getElement() {
+        checkLive();
+        return this.element;
+    }
+
+    public void setElement(@Nullable Element element) {
+        checkLive();
         this.element = element;
     }
 
@@ -36,6 +97,7 @@ public class DamagePacket implements Cloneable {
      * @param value New damage value
      */
     public void setValue(double value) {
+        checkLive();
         Preconditions.checkArgument(value >= 0, "Value cannot be negative");
         this.value = value;
     }
@@ -50,19 +112,32 @@ public class DamagePacket implements Cloneable {
      *                    increase final damage by 50%
      */
     public void multiplicativeModifier(double coefficient) {
+        checkLive();
         Preconditions.checkArgument(coefficient >= 0, "Coefficient cannot be negative");
         this.multiplicativeModifiers *= coefficient;
     }
 
     public void additiveModifier(double multiplier) {
+        checkLive();
         this.additiveModifiers += multiplier;
     }
 
+    double getAdditiveModifiers() {
+        checkLive();
+        return this.additiveModifiers;
+    }
+
+    double getMultiplicativeModifiers() {
+        checkLive();
+        return this.multiplicativeModifiers;
+    }
+
     /**
      * @return Final value of the damage packet taking into account
      * all the damage modifiers that have been registered
      */
     public double getFinalValue() {
+        checkLive();
         // Make sure the returned value is positive
         return this.value * Math.max(0, 1 + this.additiveModifiers) * this.multiplicativeModifiers;
     }
@@ -71,21 +146,69 @@ public class DamagePacket implements Cloneable {
      * @return Checks if the current packet has that damage type
      */
     public boolean hasType(DamageType type) {
-        for (DamageType checked : this.types) {
-            if (checked == type)
-                return true;
-        }
-        return false;
+        return (getTypeMask() & DamageTypeSet.mask(type)) != 0;
+    }
+
+    /**
+     * @return Checks if the current packet has at least one of these damage types
+     */
+    public boolean hasAnyType(DamageTypeSet types) {
+        return (getTypeMask() & types.mask()) != 0;
+    }
+
+    /**
+     * @return Checks if the current packet has all of these damage types
+     */
+    public boolean hasAllTypes(DamageTypeSet types) {
+        return (getTypeMask() & types.mask()) == types.mask();
     }
 
     @SuppressWarnings("MethodDoesntCallSuperMethod")
     @Override
     public DamagePacket clone() {
-        DamagePacket clone = new DamagePacket(this.value, this.types);
-        clone.additiveModifiers = this.additiveModifiers;
-        clone.multiplicativeModifiers = this.multiplicativeModifiers;
-        clone.element = this.element;
-        return clone;
+        checkLive();
+        return new DamagePacket(this.value, this.additiveModifiers, this.multiplicativeModifiers, this.element, this.typeMask);
+    }
+
+    /**
+     * Returns this damage packet to the state of a packet
+     * created with no value, element or damage type.
+     */
+    public void reset() {
+        reset(0, null, 0);
+    }
+
+    void reset(double value, @Nullable Element element, int typeMask) {
+        checkLive();
+        this.value = value;
+        this.additiveModifiers = 0;
+        this.multiplicativeModifiers = 1;
+        this.element = element;
+        this.typeMask = typeMask;
+    }
+
+    void markReleased() {
+        if (this.released) {
+            throw new IllegalStateException("Damage packet has already been released", this.releaseSite);
+        }
+        this.released = true;
+        if (DamagePool.DEBUG) {
+            this.releaseSite = new Throwable("Released here");
+        }
+    }
+
+    void markAcquired() {
+        this.released = false;
+        this.releaseSite = null;
     }
 
-}
\ No newline at end of file
+    /**
+     * Fails if this damage packet is used after being released to the
+     * {@link DamagePool}. Only checked when the pool debug mode is enabled.
+     */
+    void checkLive() {
+        if (DamagePool.DEBUG && this.released) {
+            throw new IllegalStateException("Damage packet used after being released", this.releaseSite);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package me.kubbidev.laboratory.damage;
+
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * Thread local pools of {@link DamageMetadata} and {@link DamagePacket} instances.
+ * <p>
+ * Instances obtained through {@code acquire} methods must be handed back
+ * with the matching {@code release} method once the hit has been fully
+ * processed, after which they must not be used anymore. Each thread owns
+ * its own pool, so acquiring and releasing never contend; an instance may
+ * be released by a different thread than the one which acquired it.
+ * <p>
+ * Running with {@code -Dlaboratory.damage.pool.debug=true} makes every
+ * use of a released instance fail, pointing at the place it was released.
+ */
+public final class DamagePool {
+    private DamagePool() {
+    }
+
+    /**
+     * Whether use-after-release detection is enabled.
+     */
+    static final boolean DEBUG = Boolean.getBoolean("laboratory.damage.pool.debug");
+
+    // the maximum number of idle instances kept by each thread
+    private static final int MAX_POOLED = 64;
+
+    private static final ThreadLocal<Stacks> STACKS = ThreadLocal.withInitial(Stacks::new);
+
+    /**
+     * Acquires a damage metadata with no initial packet.
+     *
+     * @return a pooled damage metadata
+     */
+    public static DamageMetadata acquire() {
+        DamageMetadata metadata = STACKS.get().popMetadata();
+        if (metadata == null) {
+            return new DamageMetadata();
+        }
+        metadata.reset();
+        return metadata;
+    }
+
+    /**
+     * Acquires a damage metadata registering an attack.
+     *
+     * @param damage  The attack damage
+     * @param element If this is an elemental attack
+     * @param types   The attack damage types
+     * @return a pooled damage metadata
+     */
+    public static DamageMetadata acquire(double damage, @Nullable Element element, DamageTypeSet types) {
+        DamageMetadata metadata = STACKS.get().popMetadata();
+        if (metadata == null) {
+            return new DamageMetadata(damage, element, types);
+        }
+        metadata.reset(damage, DamageMetadata.ordinal(element), types.mask());
+        return metadata;
+    }
+
+    /**
+     * Acquires a damage metadata registering an attack.
+     *
+     * @param damage  The attack damage
+     * @param element If this is an elemental attack
+     * @param types   The attack damage types
+     * @return a pooled damage metadata
+     */
+    public static DamageMetadata acquire(double damage, @Nullable Element element, DamageType... types) {
+        return acquire(damage, element, DamageTypeSet.of(types));
+    }
+
+    /**
+     * Acquires a damage metadata holding a copy of every packet of the given one.
+     * <p>
+     * This is the pooled equivalent of {@link DamageMetadata#clone()}.
+     *
+     * @param source the damage metadata to copy
+     * @return a pooled damage metadata
+     */
+    public static DamageMetadata acquireCopy(DamageMetadata source) {
+        DamageMetadata metadata = acquire();
+        metadata.copyFrom(source);
+        return metadata;
+    }
+
+    /**
+     * Hands a damage metadata back to the pool of the current thread.
+     *
+     * @param metadata the damage metadata
+     * @throws IllegalStateException if the damage metadata has already been released
+     */
+    public static void release(DamageMetadata metadata) {
+        metadata.markReleased();
+        STACKS.get().pushMetadata(metadata);
+    }
+
+    /**
+     * Acquires a damage packet.
+     *
+     * @param value   The damage value
+     * @param element The element
+     * @param types   The damage types
+     * @return a pooled damage packet
+     */
+    public static DamagePacket acquirePacket(double value, @Nullable Element element, DamageTypeSet types) {
+        DamagePacket packet = STACKS.get().popPacket();
+        if (packet == null) {
+            return new DamagePacket(value, element, types);
+        }
+        packet.reset(value, element, types.mask());
+        return packet;
+    }
+
+    /**
+     * Hands a damage packet back to the pool of the current thread.
+     *
+     * @param packet the damage packet
+     * @throws IllegalArgumentException if the packet belongs to a damage metadata
+     * @throws IllegalStateException    if the damage packet has already been released
+     */
+    public static void release(DamagePacket packet) {
+        if (packet.getClass() != DamagePacket.class) {
+            throw new IllegalArgumentException("Only standalone damage packets can be released");
+        }
+        packet.markReleased();
+        STACKS.get().pushPacket(packet);
+    }
+
+    private static final class Stacks {
+        private final DamageMetadata[] metadata = new DamageMetadata[MAX_POOLED];
+        private final DamagePacket[] packets = new DamagePacket[MAX_POOLED];
+        private int metadataSize;
+        private int packetsSize;
+
+        @Nullable DamageMetadata popMetadata() {
+            if (this.metadataSize == 0) {
+                return null;
+            }
+            DamageMetadata metadata = this.metadata[--this.metadataSize];
+            this.metadata[this.metadataSize] = null;
+            metadata.markAcquired();
+            return metadata;
+        }
+
+        void pushMetadata(DamageMetadata metadata) {
+            // drop the instance when the pool is full, it is simply garbage collected
+            if (this.metadataSize < MAX_POOLED) {
+                this.metadata[this.metadataSize++] = metadata;
+            }
+        }
+
+        @Nullable DamagePacket popPacket() {
+            if (this.packetsSize == 0) {
+                return null;
+            }
+            DamagePacket packet = this.packets[--this.packetsSize];
+            this.packets[this.packetsSize] = null;
+            packet.markAcquired();
+            return packet;
+        }
+
+        void pushPacket(DamagePacket packet) {
+            if (this.packetsSize < MAX_POOLED) {
+                this.packets[this.packetsSize++] = packet;
+            }
+        }
+    }
+}
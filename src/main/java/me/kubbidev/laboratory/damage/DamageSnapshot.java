@@ -0,0 +1,150 @@
+package me.kubbidev.laboratory.damage;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+
+/**
+ * An immutable view of the packets of a {@link DamageMetadata} at the
+ * time {@link DamageMetadata#snapshot()} was called.
+ * <p>
+ * Snapshots share the packet storage of the damage metadata they were
+ * taken from, which copies it before being modified: creating one does
+ * not copy any packet. Snapshots are safe to publish to other threads.
+ */
+public final class DamageSnapshot {
+    private static final Element[] ELEMENTS = Element.values();
+
+    private final int size;
+    private final double[] values;
+    private final double[] additiveModifiers;
+    private final double[] multiplicativeModifiers;
+    private final byte[] elements;
+    private final int[] typeMasks;
+
+    // lazily computed, racing threads compute equal breakdowns
+    private volatile @Nullable DamageBreakdown breakdown;
+
+    DamageSnapshot(int size, double[] values, double[] additiveModifiers, double[] multiplicativeModifiers, byte[] elements, int[] typeMasks) {
+        this.size = size;
+        this.values = values;
+        this.additiveModifiers = additiveModifiers;
+        this.multiplicativeModifiers = multiplicativeModifiers;
+        this.elements = elements;
+        this.typeMasks = typeMasks;
+    }
+
+    /**
+     * @return the number of damage packets
+     */
+    public int getPacketCount() {
+        return this.size;
+    }
+
+    /**
+     * @return the value of the packet at the given index, before modifiers
+     */
+    public double getValue(int index) {
+        return this.values[Objects.checkIndex(index, this.size)];
+    }
+
+    /**
+     * @return the final value of the packet at the given index
+     * @see DamagePacket#getFinalValue()
+     */
+    public double getFinalValue(int index) {
+        Objects.checkIndex(index, this.size);
+        return DamageMetadata.finalValue(this.values[index], this.additiveModifiers[index], this.multiplicativeModifiers[index]);
+    }
+
+    /**
+     * @return the element of the packet at the given index, or null if it is non-elemental
+     */
+    public @Nullable Element getElement(int index) {
+        byte ordinal = this.elements[Objects.checkIndex(index, this.size)];
+        return ordinal == DamageMetadata.NO_ELEMENT ? null : ELEMENTS[ordinal];
+    }
+
+    /**
+     * @return the damage types of the packet at the given index
+     */
+    public DamageTypeSet getTypes(int index) {
+        return DamageTypeSet.fromMask(this.typeMasks[Objects.checkIndex(index, this.size)]);
+    }
+
+    /**
+     * @return the total damage, see {@link DamageMetadata#getDamage()}
+     */
+    public double getDamage() {
+        return breakdown().getDamage();
+    }
+
+    /**
+     * @param element If null, non-elemental damage will be returned.
+     * @return the damage dealt by this element
+     */
+    public double getDamage(@Nullable Element element) {
+        return breakdown().getDamage(element);
+    }
+
+    /**
+     * @return the damage dealt by packets having this damage type
+     */
+    public double getDamage(DamageType type) {
+        return breakdown().getDamage(type);
+    }
+
+    /**
+     * @return the damage types found in the damage packets
+     */
+    public DamageTypeSet collectTypes() {
+        return breakdown().getTypes();
+    }
+
+    /**
+     * @param element If null, will return true if there was non-elemental damage.
+     * @return true if at least one damage packet has this element
+     */
+    public boolean hasElement(@Nullable Element element) {
+        return breakdown().getElementalBreakdown().hasElement(element);
+    }
+
+    /**
+     * @return a new breakdown of the damage of this snapshot
+     */
+    public DamageBreakdown getBreakdown() {
+        return breakdown().copy();
+    }
+
+    /**
+     * Creates a damage metadata holding the packets of this snapshot,
+     * with no initial packet.
+     * <p>
+     * The packet storage stays shared until the returned damage
+     * metadata is modified.
+     *
+     * @return a new damage metadata
+     */
+    public DamageMetadata toMetadata() {
+        return new DamageMetadata(this.size, this.values, this.additiveModifiers,
+                this.multiplicativeModifiers, this.elements, this.typeMasks);
+    }
+
+    private DamageBreakdown breakdown() {
+        DamageBreakdown breakdown = this.breakdown;
+        if (breakdown == null) {
+            breakdown = new DamageBreakdown();
+            breakdown.compute(this.size, this.values, this.additiveModifiers,
+                    this.multiplicativeModifiers, this.elements, this.typeMasks);
+            this.breakdown = breakdown;
+        }
+        return breakdown;
+    }
+
+    @Override
+    public String toString() {
+        return "DamageSnapshot(" +
+                "packets=" + this.size + ", " +
+                "damage=" + getDamage() + ")";
+    }
+}
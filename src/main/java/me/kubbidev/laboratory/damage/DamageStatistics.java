@@ -0,0 +1,291 @@
+package me.kubbidev.laboratory.damage;
+
+import me.kubbidev.laboratory.util.LogLinearBuckets;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Aggregates the damage of finished attacks recorded from any number of threads.
+ * <p>
+ * For the total damage of each attack, and for the packets of each
+ * {@link DamageType} and {@link Element}, this keeps the damage sum, the
+ * number of recorded values and a log-scale histogram of those values.
+ * <p>
+ * Every counter is striped across several cells, a recording thread only
+ * updates the cells of its own stripe with a single atomic add: recording
+ * is wait-free, never allocates and rarely contends. Damage sums are kept
+ * in fixed point, with a resolution of {@link #SUM_RESOLUTION}.
+ * <p>
+ * {@link #snapshot()} sums every stripe, which is cheap but not atomic:
+ * attacks recorded concurrently may be partially included.
+ */
+public final class DamageStatistics {
+
+    /**
+     * The smallest damage difference accounted for in damage sums.
+     */
+    public static final double SUM_RESOLUTION = 1.0 / 1024;
+
+    private static final DamageType[] TYPES = DamageType.values();
+    private static final Element[] ELEMENTS = Element.values();
+
+    // series: the attack total, then every damage type, then non-elemental damage and every element
+    private static final int TOTAL_SERIES = 0;
+    private static final int TYPE_SERIES = 1;
+    private static final int ELEMENT_SERIES = TYPE_SERIES + TYPES.length;
+    private static final int SERIES = ELEMENT_SERIES + ELEMENTS.length + 1;
+
+    // histogram buckets, 2^-7 being below the minimal damage
+    private static final LogLinearBuckets LAYOUT = new LogLinearBuckets(-7, 40, 2);
+    static final int BUCKETS = LAYOUT.count();
+
+    // layout of a stripe: every series sum, every series count, then every series histogram
+    private static final int SUM_OFFSET = 0;
+    private static final int COUNT_OFFSET = SUM_OFFSET + SERIES;
+    private static final int HISTOGRAM_OFFSET = COUNT_OFFSET + SERIES;
+    // rounded up to whole cache lines, so stripes never share one
+    private static final int STRIPE_LENGTH = (HISTOGRAM_OFFSET + SERIES * BUCKETS + 15) & ~15;
+
+    private final int stripeMask;
+    private final AtomicLongArray cells;
+
+    private volatile long startNanos = System.nanoTime();
+
+    /**
+     * Creates statistics striped across a number of cells
+     * suited to the number of available processors.
+     */
+    public DamageStatistics() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency the expected number of concurrently recording threads
+     */
+    public DamageStatistics(int concurrency) {
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(concurrency, 64)) * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes * STRIPE_LENGTH);
+    }
+
+    /**
+     * Records a finished attack.
+     *
+     * @param metadata the damage metadata of the attack
+     */
+    public void record(DamageMetadata metadata) {
+        metadata.checkLive();
+        int stripe = stripe();
+
+        add(stripe, TOTAL_SERIES, metadata.getDamage());
+        for (int i = 0; i < metadata.size; i++) {
+            double value = metadata.finalValue(i);
+            add(stripe, ELEMENT_SERIES + metadata.elements[i] + 1, value);
+
+            for (int mask = metadata.typeMasks[i]; mask != 0; mask &= mask - 1) {
+                add(stripe, TYPE_SERIES + Integer.numberOfTrailingZeros(mask), value);
+            }
+        }
+    }
+
+    /**
+     * Sums every stripe into an immutable snapshot.
+     *
+     * @return a snapshot of the statistics recorded since creation or the last reset
+     */
+    public Snapshot snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Sums every stripe into an immutable snapshot, resetting the statistics.
+     * <p>
+     * Every recorded value is either part of the returned snapshot, or
+     * kept for the next one.
+     *
+     * @return a snapshot of the statistics recorded since creation or the last reset
+     */
+    public Snapshot snapshotAndReset() {
+        return collect(true);
+    }
+
+    /**
+     * Discards every recorded value.
+     */
+    public void reset() {
+        for (int i = 0; i < this.cells.length(); i++) {
+            this.cells.set(i, 0);
+        }
+        this.startNanos = System.nanoTime();
+    }
+
+    private Snapshot collect(boolean reset) {
+        long now = System.nanoTime();
+        long start = this.startNanos;
+        if (reset) {
+            this.startNanos = now;
+        }
+
+        long[] sums = new long[SERIES];
+        long[] counts = new long[SERIES];
+        long[][] histograms = new long[SERIES][BUCKETS];
+        for (int stripe = 0; stripe <= this.stripeMask; stripe++) {
+            int base = stripe * STRIPE_LENGTH;
+            for (int series = 0; series < SERIES; series++) {
+                sums[series] += read(base + SUM_OFFSET + series, reset);
+                counts[series] += read(base + COUNT_OFFSET + series, reset);
+
+                long[] histogram = histograms[series];
+                int offset = base + HISTOGRAM_OFFSET + series * BUCKETS;
+                for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                    histogram[bucket] += read(offset + bucket, reset);
+                }
+            }
+        }
+
+        Series[] series = new Series[SERIES];
+        for (int i = 0; i < SERIES; i++) {
+            series[i] = new Series(counts[i], sums[i] * SUM_RESOLUTION, histograms[i]);
+        }
+        return new Snapshot(Duration.ofNanos(now - start), series);
+    }
+
+    private long read(int index, boolean reset) {
+        return reset ? this.cells.getAndSet(index, 0) : this.cells.get(index);
+    }
+
+    private void add(int stripe, int series, double value) {
+        int base = stripe * STRIPE_LENGTH;
+        this.cells.getAndAdd(base + SUM_OFFSET + series, Math.round(value / SUM_RESOLUTION));
+        this.cells.getAndIncrement(base + COUNT_OFFSET + series);
+        this.cells.getAndIncrement(base + HISTOGRAM_OFFSET + series * BUCKETS + LAYOUT.bucket(value));
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().threadId();
+        // spread sequential thread ids
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & this.stripeMask;
+    }
+
+    /**
+     * Immutable statistics of a set of recorded values.
+     *
+     * @param count     the number of recorded values
+     * @param sum       the sum of the recorded values
+     * @param histogram the number of recorded values in each histogram bucket
+     */
+    public record Series(long count, double sum, long[] histogram) {
+
+        public Series {
+            histogram = histogram.clone();
+        }
+
+        /**
+         * @return a copy of the number of recorded values in each histogram bucket
+         */
+        @Override
+        public long[] histogram() {
+            return this.histogram.clone();
+        }
+
+        /**
+         * @return the average recorded value, or 0 if nothing was recorded
+         */
+        public double mean() {
+            return this.count == 0 ? 0 : this.sum / this.count;
+        }
+
+        /**
+         * Estimates a percentile of the recorded values from their histogram.
+         * <p>
+         * The returned value is the upper bound of the histogram bucket
+         * containing the percentile, within 25% of the actual value.
+         *
+         * @param percentile the percentile, from 0 to 100
+         * @return the estimated value, or 0 if nothing was recorded
+         */
+        public double percentile(double percentile) {
+            long total = 0;
+            for (long value : this.histogram) {
+                total += value;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(total * (percentile / 100)));
+            long seen = 0;
+            for (int bucket = 0; bucket < this.histogram.length; bucket++) {
+                seen += this.histogram[bucket];
+                if (seen >= rank) {
+                    return LAYOUT.upperBound(bucket);
+                }
+            }
+            return LAYOUT.upperBound(this.histogram.length - 1);
+        }
+    }
+
+    /**
+     * Immutable statistics recorded over a period of time.
+     */
+    public static final class Snapshot {
+        private final Duration duration;
+        private final Series[] series;
+
+        private Snapshot(Duration duration, Series[] series) {
+            this.duration = duration;
+            this.series = series;
+        }
+
+        /**
+         * @return the time elapsed since the statistics were created or last reset
+         */
+        public Duration getDuration() {
+            return this.duration;
+        }
+
+        /**
+         * @return the statistics of the total damage of each attack
+         */
+        public Series getTotal() {
+            return this.series[TOTAL_SERIES];
+        }
+
+        /**
+         * @return the statistics of the packets having this damage type
+         */
+        public Series get(DamageType type) {
+            return this.series[TYPE_SERIES + type.ordinal()];
+        }
+
+        /**
+         * @param element If null, statistics of non-elemental packets will be returned.
+         * @return the statistics of the packets of this element
+         */
+        public Series get(@Nullable Element element) {
+            return this.series[ELEMENT_SERIES + DamageMetadata.ordinal(element) + 1];
+        }
+
+        /**
+         * @return the average damage dealt per second over the snapshot duration
+         */
+        public double getDamagePerSecond() {
+            long nanos = this.duration.toNanos();
+            return nanos == 0 ? 0 : getTotal().sum() / (nanos / 1e9);
+        }
+
+        /**
+         * @param element If null, the share of non-elemental damage will be returned.
+         * @return the share of the total damage dealt by this element, from 0 to 1
+         */
+        public double getShare(@Nullable Element element) {
+            double total = 0;
+            for (int i = ELEMENT_SERIES; i < SERIES; i++) {
+                total += this.series[i].sum();
+            }
+            return total == 0 ? 0 : get(element).sum() / total;
+        }
+    }
+}
@@ -0,0 +1,257 @@
+package me.kubbidev.laboratory.damage;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.*;
+
+/**
+ * An immutable set of {@link DamageType}s encoded as a single bit mask.
+ * <p>
+ * There are only a handful of damage types, so every possible set is
+ * created once and cached: obtaining a set through {@link #of(DamageType...)}
+ * or {@link #fromMask(int)} never allocates, and membership queries are
+ * a single bitwise operation.
+ * <p>
+ * This set behaves like any other {@link Set} of damage types and compares
+ * equal to an {@link EnumSet} holding the same elements.
+ */
+public final class DamageTypeSet extends AbstractSet<DamageType> {
+    private static final DamageType[] TYPES = DamageType.values();
+
+    /**
+     * The mask containing every damage type.
+     */
+    public static final int ALL_MASK = (1 << TYPES.length) - 1;
+
+    private static final DamageTypeSet[] CACHE = new DamageTypeSet[ALL_MASK + 1];
+
+    static {
+        for (int mask = 0; mask <= ALL_MASK; mask++) {
+            CACHE[mask] = new DamageTypeSet(mask);
+        }
+    }
+
+    /**
+     * Returns the empty damage type set.
+     *
+     * @return the empty set
+     */
+    public static DamageTypeSet none() {
+        return CACHE[0];
+    }
+
+    /**
+     * Returns the set containing every damage type.
+     *
+     * @return the full set
+     */
+    public static DamageTypeSet all() {
+        return CACHE[ALL_MASK];
+    }
+
+    /**
+     * Returns the set containing the given damage types.
+     *
+     * @param types the damage types
+     * @return the damage type set
+     */
+    public static DamageTypeSet of(DamageType... types) {
+        return CACHE[mask(types)];
+    }
+
+    /**
+     * Returns the set containing the given damage types.
+     *
+     * @param types the damage types
+     * @return the damage type set
+     */
+    public static DamageTypeSet copyOf(Collection<DamageType> types) {
+        if (types instanceof DamageTypeSet) {
+            return (DamageTypeSet) types;
+        }
+
+        int mask = 0;
+        for (DamageType type : types) {
+            mask |= mask(type);
+        }
+        return CACHE[mask];
+    }
+
+    /**
+     * Returns the set encoded by the given mask.
+     *
+     * @param mask the mask, as returned by {@link #mask()}
+     * @return the damage type set
+     * @throws IllegalArgumentException if the mask contains unknown bits
+     */
+    public static DamageTypeSet fromMask(int mask) {
+        if ((mask & ~ALL_MASK) != 0) {
+            throw new IllegalArgumentException("Unknown damage type bits in mask " + Integer.toBinaryString(mask));
+        }
+        return CACHE[mask];
+    }
+
+    /**
+     * Returns the bit used to encode a damage type.
+     *
+     * @param type the damage type
+     * @return the damage type bit
+     */
+    public static int mask(DamageType type) {
+        return 1 << type.ordinal();
+    }
+
+    /**
+     * Returns the mask encoding the given damage types.
+     *
+     * @param types the damage types
+     * @return the damage type mask
+     */
+    public static int mask(DamageType... types) {
+        int mask = 0;
+        for (DamageType type : types) {
+            mask |= mask(type);
+        }
+        return mask;
+    }
+
+    private final int mask;
+
+    private DamageTypeSet(int mask) {
+        this.mask = mask;
+    }
+
+    /**
+     * @return the bit mask encoding this set
+     */
+    public int mask() {
+        return this.mask;
+    }
+
+    /**
+     * @return true if this set contains the given damage type
+     */
+    public boolean contains(DamageType type) {
+        return (this.mask & mask(type)) != 0;
+    }
+
+    /**
+     * @return true if this set shares at least one damage type with the other
+     */
+    public boolean containsAny(DamageTypeSet other) {
+        return (this.mask & other.mask) != 0;
+    }
+
+    /**
+     * @return true if this set contains every damage type of the other
+     */
+    public boolean containsAll(DamageTypeSet other) {
+        return (this.mask & other.mask) == other.mask;
+    }
+
+    /**
+     * @return the set containing the types of this set plus the given type
+     */
+    public DamageTypeSet with(DamageType type) {
+        return CACHE[this.mask | mask(type)];
+    }
+
+    /**
+     * @return the set containing the types of this set minus the given type
+     */
+    public DamageTypeSet without(DamageType type) {
+        return CACHE[this.mask & ~mask(type)];
+    }
+
+    /**
+     * @return the set containing the types of both sets
+     */
+    public DamageTypeSet union(DamageTypeSet other) {
+        return CACHE[this.mask | other.mask];
+    }
+
+    /**
+     * @return the set containing the types found in both sets
+     */
+    public DamageTypeSet intersection(DamageTypeSet other) {
+        return CACHE[this.mask & other.mask];
+    }
+
+    /**
+     * @return a new mutable {@link EnumSet} holding the types of this set
+     */
+    public EnumSet<DamageType> toEnumSet() {
+        EnumSet<DamageType> set = EnumSet.noneOf(DamageType.class);
+        for (DamageType type : TYPES) {
+            if (contains(type))
+                set.add(type);
+        }
+        return set;
+    }
+
+    /**
+     * @return a new array holding the types of this set, in declaration order
+     */
+    public DamageType[] toTypeArray() {
+        DamageType[] types = new DamageType[size()];
+
+        int j = 0;
+        for (DamageType type : TYPES) {
+            if (contains(type))
+                types[j++] = type;
+        }
+        return types;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return o instanceof DamageType && contains((DamageType) o);
+    }
+
+    @Override
+    public boolean containsAll(@NotNull Collection<?> c) {
+        if (c instanceof DamageTypeSet) {
+            return containsAll((DamageTypeSet) c);
+        }
+        return super.containsAll(c);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.mask == 0;
+    }
+
+    @Override
+    public int size() {
+        return Integer.bitCount(this.mask);
+    }
+
+    @Override
+    public @NotNull Iterator<DamageType> iterator() {
+        return new Iterator<>() {
+            private int remaining = DamageTypeSet.this.mask;
+
+            @Override
+            public boolean hasNext() {
+                return this.remaining != 0;
+            }
+
+            @Override
+            public DamageType next() {
+                if (this.remaining == 0) {
+                    throw new NoSuchElementException();
+                }
+                int ordinal = Integer.numberOfTrailingZeros(this.remaining);
+                this.remaining &= this.remaining - 1;
+                return TYPES[ordinal];
+            }
+        };
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) return true;
+        if (o instanceof DamageTypeSet) return false; // sets are interned by mask
+        return super.equals(o);
+    }
+}
@@ -0,0 +1,160 @@
+package me.kubbidev.laboratory.damage;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.*;
+
+/**
+ * The damage dealt by each element of an attack.
+ * <p>
+ * Damage is stored in a primitive array indexed by element ordinal,
+ * so looking up an element never boxes. {@link #asMap()} and
+ * {@link #toEnumMap()} provide map views for callers expecting the
+ * result of {@link DamageMetadata#mapElementalDamage()}.
+ */
+public final class ElementalBreakdown {
+    private static final Element[] ELEMENTS = Element.values();
+
+    // indexed by element ordinal + 1, non-elemental damage being stored first
+    final double[] damage = new double[ELEMENTS.length + 1];
+    // elements found in the packets, using the same indexing
+    int elementMask;
+
+    private @Nullable Map<Element, Double> mapView;
+
+    /**
+     * Creates an empty breakdown, meant to be filled by
+     * {@link DamageMetadata#getElementalBreakdown(ElementalBreakdown)}.
+     */
+    public ElementalBreakdown() {
+    }
+
+    /**
+     * @param element If null, non-elemental damage will be returned.
+     * @return the damage dealt by this element
+     */
+    public double getDamage(@Nullable Element element) {
+        return this.damage[DamageMetadata.ordinal(element) + 1];
+    }
+
+    /**
+     * @param element If null, will return true if there was non-elemental damage.
+     * @return true if at least one damage packet had this element
+     */
+    public boolean hasElement(@Nullable Element element) {
+        return (this.elementMask & (1 << (DamageMetadata.ordinal(element) + 1))) != 0;
+    }
+
+    /**
+     * @return a new set containing every element found in the damage packets
+     */
+    public EnumSet<Element> getElements() {
+        EnumSet<Element> elements = EnumSet.noneOf(Element.class);
+        for (Element element : ELEMENTS) {
+            if (hasElement(element))
+                elements.add(element);
+        }
+        return elements;
+    }
+
+    /**
+     * Returns an unmodifiable map view of this breakdown, containing the
+     * same entries as {@link DamageMetadata#mapElementalDamage()}.
+     *
+     * @return a map view
+     */
+    public Map<Element, Double> asMap() {
+        if (this.mapView == null) {
+            this.mapView = new MapView();
+        }
+        return this.mapView;
+    }
+
+    /**
+     * @return a new map containing the damage dealt by every element found in the damage packets
+     */
+    public EnumMap<Element, Double> toEnumMap() {
+        EnumMap<Element, Double> map = new EnumMap<>(Element.class);
+        for (Element element : ELEMENTS) {
+            if (hasElement(element))
+                map.put(element, getDamage(element));
+        }
+        return map;
+    }
+
+    /**
+     * @return a copy of this breakdown
+     */
+    public ElementalBreakdown copy() {
+        ElementalBreakdown copy = new ElementalBreakdown();
+        copy.copyFrom(this);
+        return copy;
+    }
+
+    void copyFrom(ElementalBreakdown other) {
+        System.arraycopy(other.damage, 0, this.damage, 0, this.damage.length);
+        this.elementMask = other.elementMask;
+    }
+
+    void clear() {
+        Arrays.fill(this.damage, 0);
+        this.elementMask = 0;
+    }
+
+    @Override
+    public String toString() {
+        return "ElementalBreakdown" + asMap();
+    }
+
+    private final class MapView extends AbstractMap<Element, Double> {
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof Element && hasElement((Element) key);
+        }
+
+        @Override
+        public Double get(Object key) {
+            return containsKey(key) ? getDamage((Element) key) : null;
+        }
+
+        @Override
+        public int size() {
+            // the non-elemental bit is not part of the map
+            return Integer.bitCount(ElementalBreakdown.this.elementMask >>> 1);
+        }
+
+        @Override
+        public @NotNull Set<Entry<Element, Double>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public @NotNull Iterator<Entry<Element, Double>> iterator() {
+                    return new Iterator<>() {
+                        private int remaining = ElementalBreakdown.this.elementMask >>> 1;
+
+                        @Override
+                        public boolean hasNext() {
+                            return this.remaining != 0;
+                        }
+
+                        @Override
+                        public Entry<Element, Double> next() {
+                            if (this.remaining == 0) {
+                                throw new NoSuchElementException();
+                            }
+                            Element element = ELEMENTS[Integer.numberOfTrailingZeros(this.remaining)];
+                            this.remaining &= this.remaining - 1;
+                            return new SimpleImmutableEntry<>(element, getDamage(element));
+                        }
+                    };
+                }
+
+                @Override
+                public int size() {
+                    return MapView.this.size();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package me.kubbidev.laboratory.damage.simulation;
+
+import com.google.common.base.Preconditions;
+import me.kubbidev.laboratory.damage.*;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SplittableRandom;
+
+/**
+ * An immutable description of a randomized hit, simulated by a {@link DamageSimulator}.
+ * <p>
+ * Each simulated hit rolls its base damage within the damage spread,
+ * splits it between non-elemental damage and the configured elements,
+ * may critically strike, then goes through the modifier pipeline.
+ */
+public final class DamageScenario {
+
+    /**
+     * Creates a new scenario builder.
+     *
+     * @return a new builder
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    private final double baseDamage;
+    private final double spread;
+    private final double criticalChance;
+    private final double criticalMultiplier;
+    private final DamageTypeSet types;
+
+    // elemental parts of the base damage, the remaining part is non-elemental
+    private final Element[] elements;
+    private final double[] fractions;
+    private final double nonElementalFraction;
+
+    private final @Nullable DamageModifierPipeline pipeline;
+
+    private DamageScenario(Builder builder) {
+        this.baseDamage = builder.baseDamage;
+        this.spread = builder.spread;
+        this.criticalChance = builder.criticalChance;
+        this.criticalMultiplier = builder.criticalMultiplier;
+        this.types = builder.types;
+        this.elements = builder.elements.keySet().toArray(new Element[0]);
+        this.fractions = new double[this.elements.length];
+
+        double elementalFraction = 0;
+        for (int i = 0; i < this.elements.length; i++) {
+            this.fractions[i] = builder.elements.get(this.elements[i]);
+            elementalFraction += this.fractions[i];
+        }
+        this.nonElementalFraction = Math.max(0, 1 - elementalFraction);
+        this.pipeline = builder.pipeline;
+    }
+
+    public double getBaseDamage() {
+        return this.baseDamage;
+    }
+
+    public double getSpread() {
+        return this.spread;
+    }
+
+    public double getCriticalChance() {
+        return this.criticalChance;
+    }
+
+    public double getCriticalMultiplier() {
+        return this.criticalMultiplier;
+    }
+
+    public DamageTypeSet getTypes() {
+        return this.types;
+    }
+
+    /**
+     * Registers the packets of a randomized hit into the given damage metadata,
+     * which must not hold any packet.
+     * <p>
+     * Exactly two random numbers are drawn per hit, so the hits of a
+     * scenario always consume the random stream at the same pace.
+     *
+     * @return true if the hit was a critical strike
+     */
+    boolean roll(SplittableRandom random, DamageMetadata metadata) {
+        double damage = this.baseDamage * (1 + this.spread * (2 * random.nextDouble() - 1));
+        boolean critical = random.nextDouble() < this.criticalChance;
+
+        if (this.nonElementalFraction > 0) {
+            metadata.add(damage * this.nonElementalFraction, this.types);
+        }
+        for (int i = 0; i < this.elements.length; i++) {
+            metadata.add(damage * this.fractions[i], this.elements[i], this.types);
+        }
+
+        if (critical) {
+            metadata.multiplicativeModifier(this.criticalMultiplier);
+        }
+        if (this.pipeline != null) {
+            metadata.modifiers(this.pipeline);
+        }
+        return critical;
+    }
+
+    public static final class Builder {
+        private double baseDamage = 1;
+        private double spread = 0;
+        private double criticalChance = 0;
+        private double criticalMultiplier = 1.5;
+        private DamageTypeSet types = DamageTypeSet.none();
+        private final Map<Element, Double> elements = new EnumMap<>(Element.class);
+        private @Nullable DamageModifierPipeline pipeline;
+
+        private Builder() {
+        }
+
+        /**
+         * @param baseDamage the average damage of a hit, before critical strikes and modifiers
+         */
+        public Builder baseDamage(double baseDamage) {
+            Preconditions.checkArgument(baseDamage >= 0, "base damage cannot be negative");
+            this.baseDamage = baseDamage;
+            return this;
+        }
+
+        /**
+         * @param spread the maximal relative deviation of the base damage, e.g. 0.1 for ±10%
+         */
+        public Builder spread(double spread) {
+            Preconditions.checkArgument(spread >= 0 && spread <= 1, "spread must be between 0 and 1");
+            this.spread = spread;
+            return this;
+        }
+
+        /**
+         * @param chance     the chance of a hit to be a critical strike, from 0 to 1
+         * @param multiplier the multiplicative modifier applied to critical strikes
+         */
+        public Builder critical(double chance, double multiplier) {
+            Preconditions.checkArgument(chance >= 0 && chance <= 1, "critical chance must be between 0 and 1");
+            Preconditions.checkArgument(multiplier >= 0, "critical multiplier cannot be negative");
+            this.criticalChance = chance;
+            this.criticalMultiplier = multiplier;
+            return this;
+        }
+
+        /**
+         * @param types the damage types of every packet of a hit
+         */
+        public Builder types(DamageType... types) {
+            return types(DamageTypeSet.of(types));
+        }
+
+        /**
+         * @param types the damage types of every packet of a hit
+         */
+        public Builder types(DamageTypeSet types) {
+            this.types = Objects.requireNonNull(types, "types");
+            return this;
+        }
+
+        /**
+         * Deals part of the base damage as elemental damage.
+         * <p>
+         * Whatever is not split between elements is dealt as non-elemental damage.
+         *
+         * @param element  the element
+         * @param fraction the part of the base damage dealt by this element, from 0 to 1
+         */
+        public Builder element(Element element, double fraction) {
+            Objects.requireNonNull(element, "element");
+            Preconditions.checkArgument(fraction >= 0 && fraction <= 1, "fraction must be between 0 and 1");
+            this.elements.put(element, fraction);
+            return this;
+        }
+
+        /**
+         * @param pipeline the modifiers applied to every hit, after critical strikes
+         */
+        public Builder modifiers(@Nullable DamageModifierPipeline pipeline) {
+            this.pipeline = pipeline;
+            return this;
+        }
+
+        public DamageScenario build() {
+            double elementalFraction = 0;
+            for (double fraction : this.elements.values()) {
+                elementalFraction += fraction;
+            }
+            Preconditions.checkArgument(elementalFraction <= 1 + 1e-9, "elemental fractions cannot exceed 1");
+            return new DamageScenario(this);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package me.kubbidev.laboratory.damage.simulation;
+
+import com.google.common.base.Preconditions;
+import me.kubbidev.laboratory.damage.DamageBreakdown;
+import me.kubbidev.laboratory.damage.DamageMetadata;
+import me.kubbidev.laboratory.damage.DamagePool;
+import me.kubbidev.laboratory.damage.Element;
+
+import java.util.Objects;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Simulates large numbers of randomized hits in parallel, reporting
+ * the distribution of the damage they deal.
+ * <p>
+ * Hits are split between fork-join tasks following a split tree which only
+ * depends on the number of hits. Every task draws from its own
+ * {@link SplittableRandom} stream, split from its parent's, and partial
+ * results are merged following the same tree: a simulation run with a
+ * given seed always gives the exact same result, whatever the parallelism
+ * of the pool and however tasks are scheduled.
+ * <p>
+ * Hits are not kept: every task records them in a log-linear histogram,
+ * merged along with the other partial results, so a simulation uses the
+ * same memory whatever its number of hits.
+ */
+public final class DamageSimulator {
+
+    // the maximum number of hits simulated by a single task, must never depend on the pool
+    private static final int BLOCK_SIZE = 4096;
+
+    private static final Element[] ELEMENTS = Element.values();
+
+    private final ForkJoinPool pool;
+
+    /**
+     * Creates a simulator running on the common pool.
+     */
+    public DamageSimulator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param pool the pool running simulations
+     */
+    public DamageSimulator(ForkJoinPool pool) {
+        this.pool = Objects.requireNonNull(pool, "pool");
+    }
+
+    /**
+     * Simulates hits of the given scenario.
+     *
+     * @param scenario the scenario
+     * @param hits     the number of simulated hits
+     * @param seed     the seed of the random streams
+     * @return the simulation result
+     */
+    public SimulationResult simulate(DamageScenario scenario, int hits, long seed) {
+        Objects.requireNonNull(scenario, "scenario");
+        Preconditions.checkArgument(hits > 0, "at least one hit must be simulated");
+
+        Accumulator accumulator = this.pool.invoke(new SimulationTask(scenario, 0, hits, new SplittableRandom(seed)));
+        return new SimulationResult(hits, accumulator.sum, accumulator.sumOfSquares, accumulator.min, accumulator.max,
+                accumulator.histogram, accumulator.criticals, accumulator.elementDamage);
+    }
+
+    // tasks are never serialized
+    @SuppressWarnings("serial")
+    private static final class SimulationTask extends RecursiveTask<Accumulator> {
+        private final DamageScenario scenario;
+        private final int from;
+        private final int to;
+        private final SplittableRandom random;
+
+        SimulationTask(DamageScenario scenario, int from, int to, SplittableRandom random) {
+            this.scenario = scenario;
+            this.from = from;
+            this.to = to;
+            this.random = random;
+        }
+
+        @Override
+        protected Accumulator compute() {
+            if (this.to - this.from <= BLOCK_SIZE) {
+                return simulate();
+            }
+
+            int middle = (this.from + this.to) >>> 1;
+            // always split the left stream first, so both streams only depend on the seed
+            SimulationTask left = new SimulationTask(this.scenario, this.from, middle, this.random.split());
+            SimulationTask right = new SimulationTask(this.scenario, middle, this.to, this.random);
+
+            left.fork();
+            Accumulator rightResult = right.compute();
+            return left.join().merge(rightResult);
+        }
+
+        private Accumulator simulate() {
+            Accumulator accumulator = new Accumulator();
+            DamageBreakdown breakdown = new DamageBreakdown();
+            DamageMetadata metadata = DamagePool.acquire();
+            try {
+                for (int i = this.from; i < this.to; i++) {
+                    metadata.reset();
+                    boolean critical = this.scenario.roll(this.random, metadata);
+                    metadata.getBreakdown(breakdown);
+
+                    accumulator.add(breakdown.getDamage(), critical, breakdown);
+                }
+            } finally {
+                DamagePool.release(metadata);
+            }
+            return accumulator;
+        }
+    }
+
+    /**
+     * Partial sums of a range of hits.
+     */
+    private static final class Accumulator {
+        private double sum;
+        private double sumOfSquares;
+        private double min = Double.POSITIVE_INFINITY;
+        private double max = Double.NEGATIVE_INFINITY;
+        private final long[] histogram = new long[SimulationResult.LAYOUT.count()];
+        private long criticals;
+        // indexed by element ordinal + 1, non-elemental damage being stored first
+        private final double[] elementDamage = new double[ELEMENTS.length + 1];
+
+        void add(double damage, boolean critical, DamageBreakdown breakdown) {
+            this.sum += damage;
+            this.sumOfSquares += damage * damage;
+            this.min = Math.min(this.min, damage);
+            this.max = Math.max(this.max, damage);
+            this.histogram[SimulationResult.LAYOUT.bucket(damage)]++;
+            if (critical) {
+                this.criticals++;
+            }
+            this.elementDamage[0] += breakdown.getDamage((Element) null);
+            for (Element element : ELEMENTS) {
+                this.elementDamage[element.ordinal() + 1] += breakdown.getDamage(element);
+            }
+        }
+
+        Accumulator merge(Accumulator other) {
+            this.sum += other.sum;
+            this.sumOfSquares += other.sumOfSquares;
+            this.min = Math.min(this.min, other.min);
+            this.max = Math.max(this.max, other.max);
+            for (int i = 0; i < this.histogram.length; i++) {
+                this.histogram[i] += other.histogram[i];
+            }
+            this.criticals += other.criticals;
+            for (int i = 0; i < this.elementDamage.length; i++) {
+                this.elementDamage[i] += other.elementDamage[i];
+            }
+            return this;
+        }
+    }
+}
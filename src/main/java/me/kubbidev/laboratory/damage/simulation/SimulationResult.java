@@ -0,0 +1,136 @@
+package me.kubbidev.laboratory.damage.simulation;
+
+import com.google.common.base.Preconditions;
+import me.kubbidev.laboratory.damage.Element;
+import me.kubbidev.laboratory.util.LogLinearBuckets;
+import org.jetbrains.annotations.Nullable;
+
+/**
+ * The damage distribution of a simulation run by a {@link DamageSimulator}.
+ * <p>
+ * Percentiles are estimated from a log-linear histogram splitting every
+ * power of two into 32 linear buckets, so they are within about 3% of the
+ * actual value.
+ */
+public final class SimulationResult {
+
+    // histogram buckets, 2^-7 being below the minimal damage
+    static final LogLinearBuckets LAYOUT = new LogLinearBuckets(-7, 40, 5);
+
+    private final int hits;
+    private final double sum;
+    private final double sumOfSquares;
+    private final double min;
+    private final double max;
+    private final long[] histogram;
+    private final long criticals;
+    // indexed by element ordinal + 1, non-elemental damage being stored first
+    private final double[] elementDamage;
+    // the damage of every element, non-elemental damage included
+    private final double damageTotal;
+
+    SimulationResult(int hits, double sum, double sumOfSquares, double min, double max, long[] histogram, long criticals, double[] elementDamage) {
+        this.hits = hits;
+        this.sum = sum;
+        this.sumOfSquares = sumOfSquares;
+        this.min = min;
+        this.max = max;
+        this.histogram = histogram;
+        this.criticals = criticals;
+        this.elementDamage = elementDamage;
+
+        double damageTotal = 0;
+        for (double damage : elementDamage) {
+            damageTotal += damage;
+        }
+        this.damageTotal = damageTotal;
+    }
+
+    /**
+     * @return the number of simulated hits
+     */
+    public int getHits() {
+        return this.hits;
+    }
+
+    /**
+     * @return the average damage of a hit
+     */
+    public double getMean() {
+        return this.sum / this.hits;
+    }
+
+    /**
+     * @return the standard deviation of the damage of a hit
+     */
+    public double getStandardDeviation() {
+        double mean = getMean();
+        return Math.sqrt(Math.max(0, this.sumOfSquares / this.hits - mean * mean));
+    }
+
+    /**
+     * @return the lowest damage dealt by a hit
+     */
+    public double getMin() {
+        return this.min;
+    }
+
+    /**
+     * @return the highest damage dealt by a hit
+     */
+    public double getMax() {
+        return this.max;
+    }
+
+    /**
+     * Estimates the damage below or equal to which the given percentage of hits fall.
+     * <p>
+     * The returned value is the upper bound of the histogram bucket
+     * containing the percentile, capped to the lowest and highest damage.
+     *
+     * @param percentile the percentile, from 0 to 100
+     * @return the damage at this percentile
+     */
+    public double getPercentile(double percentile) {
+        Preconditions.checkArgument(percentile >= 0 && percentile <= 100, "percentile must be between 0 and 100");
+        long rank = Math.max(1, (long) Math.ceil(this.hits * (percentile / 100)));
+        long seen = 0;
+        for (int bucket = 0; bucket < this.histogram.length; bucket++) {
+            seen += this.histogram[bucket];
+            if (seen >= rank) {
+                return Math.max(this.min, Math.min(LAYOUT.upperBound(bucket), this.max));
+            }
+        }
+        return this.max;
+    }
+
+    /**
+     * @return the share of hits which were critical strikes, from 0 to 1
+     */
+    public double getCriticalRate() {
+        return (double) this.criticals / this.hits;
+    }
+
+    /**
+     * @param element If null, the share of non-elemental damage will be returned.
+     * @return the share of the total damage dealt by this element, from 0 to 1
+     */
+    public double getShare(@Nullable Element element) {
+        if (this.damageTotal == 0) {
+            return 0;
+        }
+        int index = element == null ? 0 : element.ordinal() + 1;
+        return this.elementDamage[index] / this.damageTotal;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationResult(" +
+                "hits=" + getHits() + ", " +
+                "mean=" + getMean() + ", " +
+                "stdDev=" + getStandardDeviation() + ", " +
+                "p50=" + getPercentile(50) + ", " +
+                "p99=" + getPercentile(99) + ", " +
+                "criticalRate=" + getCriticalRate() + ")";
+    }
+}
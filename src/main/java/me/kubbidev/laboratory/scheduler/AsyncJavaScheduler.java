@@ -1,24 +1,70 @@
 package me.kubbidev.laboratory.scheduler;
 
 import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
 
-import java.util.Arrays;
+import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
+import java.util.function.Supplier;
 
 /**
  * Abstract implementation of {@link SchedulerAdapter} using a {@link ScheduledExecutorService}.
+ * <p>
+ * The worker pool either has a fixed parallelism, or adapts it to the
+ * available processors and the observed load, see {@link #adaptive(int, int)}.
+ * <p>
+ * The {@link #getMetrics() metrics} of the scheduler count rejected and
+ * cancelled tasks, and time every task once
+ * {@link SchedulerMetrics#setTaskTiming(boolean) task timing} is enabled.
  */
 @Slf4j
 public class AsyncJavaScheduler implements SchedulerAdapter {
-    private static final int PARALLELISM = 16;
+    // the threads the worker pool may start on top of its parallelism, to compensate blocked ones
+    private static final int SPARE_THREADS = 256;
+    private static final long SAMPLE_MILLIS = 100;
 
     private final ScheduledThreadPoolExecutor scheduler;
+    private final WorkerThreadFactory workerThreads = new WorkerThreadFactory();
     private final ForkJoinPool worker;
+    private final SchedulerMetrics metrics;
+    private final Executor async = this::execute;
 
+    private final AtomicInteger managedBlocked = new AtomicInteger();
+    private final @Nullable WorkerPoolSizer sizer;
+
+    /**
+     * Creates a scheduler whose worker pool has a fixed parallelism.
+     */
     public AsyncJavaScheduler() {
+        this(WorkerThreadFactory.PARALLELISM, WorkerThreadFactory.PARALLELISM, false);
+    }
+
+    /**
+     * Creates a scheduler whose worker pool adapts its parallelism, between
+     * the number of available processors and 16 times that number.
+     *
+     * @return the scheduler
+     */
+    public static AsyncJavaScheduler adaptive() {
+        int processors = Runtime.getRuntime().availableProcessors();
+        return adaptive(processors, processors * 16);
+    }
+
+    /**
+     * Creates a scheduler whose worker pool adapts its parallelism to the
+     * available processors and to how much its workers block, see {@link WorkerPoolSizer}.
+     *
+     * @param minParallelism the lower bound of the parallelism
+     * @param maxParallelism the upper bound of the parallelism
+     * @return the scheduler
+     */
+    public static AsyncJavaScheduler adaptive(int minParallelism, int maxParallelism) {
+        return new AsyncJavaScheduler(minParallelism, maxParallelism, true);
+    }
+
+    private AsyncJavaScheduler(int minParallelism, int maxParallelism, boolean adaptive) {
         this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
             Thread thread = Executors.defaultThreadFactory().newThread(r);
             thread.setName("laboratory-scheduler");
@@ -26,24 +72,112 @@ public class AsyncJavaScheduler implements SchedulerAdapter {
         });
         this.scheduler.setRemoveOnCancelPolicy(true);
         this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
-        this.worker = new ForkJoinPool(PARALLELISM, new WorkerThreadFactory(), new ExceptionHandler(), false);
+        if (adaptive) {
+            this.worker = new ForkJoinPool(WorkerPoolSizer.initialParallelism(minParallelism, maxParallelism),
+                    this.workerThreads, WorkerThreadFactory.EXCEPTION_HANDLER, false,
+                    0, maxParallelism + SPARE_THREADS, 1, pool -> true, 60, TimeUnit.SECONDS);
+            this.sizer = new WorkerPoolSizer(this.worker, this.workerThreads.getThreads(), this.managedBlocked, minParallelism, maxParallelism);
+            this.scheduler.scheduleAtFixedRate(this.sizer::sample, SAMPLE_MILLIS, SAMPLE_MILLIS, TimeUnit.MILLISECONDS);
+        } else {
+            this.worker = this.workerThreads.newPool();
+            this.sizer = null;
+        }
+        this.metrics = new SchedulerMetrics(
+                () -> this.scheduler.getQueue().size(),
+                () -> this.worker.getQueuedSubmissionCount() + this.worker.getQueuedTaskCount()
+        );
+    }
+
+    /**
+     * Gets the sizer adapting the parallelism of the worker pool, if adaptive
+     *
+     * @return the sizer of the worker pool
+     */
+    public Optional<WorkerPoolSizer> getPoolSizer() {
+        return Optional.ofNullable(this.sizer);
+    }
+
+    /**
+     * Runs a blocking call, such as I/O, letting the worker pool start a
+     * spare worker while the calling worker is blocked.
+     *
+     * @param task the blocking call
+     * @param <T>  the type of result
+     * @return the result of the call
+     */
+    public <T> T block(Supplier<T> task) {
+        BlockingCall<T> call = new BlockingCall<>(task);
+        this.managedBlocked.incrementAndGet();
+        try {
+            ForkJoinPool.managedBlock(call);
+        } catch (InterruptedException e) {
+            // never thrown by BlockingCall#block
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        } finally {
+            this.managedBlocked.decrementAndGet();
+        }
+        return call.result;
+    }
+
+    /**
+     * Runs a blocking call, such as I/O, letting the worker pool start a
+     * spare worker while the calling worker is blocked.
+     *
+     * @param task the blocking call
+     */
+    public void block(Runnable task) {
+        block(() -> {
+            task.run();
+            return null;
+        });
+    }
+
+    private void execute(Runnable task) {
+        try {
+            this.worker.execute(this.metrics.wrap(task));
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
     }
 
     @Override
     public Executor async() {
-        return this.worker;
+        return this.async;
     }
 
     @Override
     public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
-        ScheduledFuture<?> future = this.scheduler.schedule(() -> this.worker.execute(task), delay, unit);
-        return () -> future.cancel(false);
+        try {
+            ScheduledFuture<?> future = this.scheduler.schedule(this.metrics.wrapScheduled(() -> execute(task), delay, 0, unit), delay, unit);
+            return () -> cancel(future);
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
     }
 
     @Override
     public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
-        ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(() -> this.worker.execute(task), interval, interval, unit);
-        return () -> future.cancel(false);
+        try {
+            ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(this.metrics.wrapScheduled(() -> execute(task), interval, interval, unit), interval, interval, unit);
+            return () -> cancel(future);
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
+    }
+
+    private void cancel(ScheduledFuture<?> future) {
+        if (future.cancel(false)) {
+            this.metrics.recordCancelled();
+        }
+    }
+
+    @Override
+    public Optional<SchedulerMetrics> getMetrics() {
+        return Optional.of(this.metrics);
     }
 
     @Override
@@ -61,43 +195,38 @@ public class AsyncJavaScheduler implements SchedulerAdapter {
 
     @Override
     public void shutdownExecutor() {
-        this.worker.shutdown();
-        try {
-            if (!this.worker.awaitTermination(1, TimeUnit.MINUTES)) {
-                log.error("Timed out waiting for the Laboratory worker thread pool to terminate");
-                reportRunningTasks(thread -> thread.getName().startsWith("laboratory-worker-"));
-            }
-        } catch (InterruptedException e) {
-            e.printStackTrace();
-        }
+        this.workerThreads.shutdown(this.worker);
     }
 
     private void reportRunningTasks(Predicate<Thread> predicate) {
         Thread.getAllStackTraces().forEach((thread, stack) -> {
             if (predicate.test(thread)) {
-                log.warn("Thread " + thread.getName() + " is blocked, and may be the reason for the slow shutdown!\n" +
-                        Arrays.stream(stack).map(el -> "  " + el).collect(Collectors.joining("\n"))
-                );
+                WorkerThreadFactory.reportRunningTask(thread, stack);
             }
         });
     }
 
-    private static final class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
-        private static final AtomicInteger COUNT = new AtomicInteger(0);
+    private static final class BlockingCall<T> implements ForkJoinPool.ManagedBlocker {
+        private final Supplier<T> task;
+        private @Nullable T result;
+        private boolean done;
+
+        BlockingCall(Supplier<T> task) {
+            this.task = task;
+        }
 
         @Override
-        public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
-            ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
-            thread.setDaemon(true);
-            thread.setName("laboratory-worker-" + COUNT.getAndIncrement());
-            return thread;
+        public boolean block() {
+            if (!this.done) {
+                this.result = this.task.get();
+                this.done = true;
+            }
+            return true;
         }
-    }
 
-    private static final class ExceptionHandler implements Thread.UncaughtExceptionHandler {
         @Override
-        public void uncaughtException(Thread t, Throwable e) {
-            log.warn("Thread " + t.getName() + " threw an uncaught exception", e);
+        public boolean isReleasable() {
+            return this.done;
         }
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,177 @@
+package me.kubbidev.laboratory.scheduler;
+
+import me.kubbidev.laboratory.util.LogLinearBuckets;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A log-linear histogram of durations in nanoseconds, recorded from any number of threads.
+ * <p>
+ * Every power of two is split into 8 linear buckets, so
+ * estimated percentiles are within 12.5% of the actual value, from a
+ * microsecond up to more than an hour.
+ * <p>
+ * Like {@code DamageStatistics}, counters are striped across several
+ * cells and a recording thread only updates the cells of its own stripe:
+ * recording never allocates and rarely contends.
+ */
+public final class LatencyHistogram {
+
+    // histogram buckets, from about a microsecond to about an hour
+    private static final LogLinearBuckets LAYOUT = new LogLinearBuckets(10, 42, 3);
+    static final int BUCKETS = LAYOUT.count();
+
+    // layout of a stripe: the sum, the count, the maximum, then the histogram
+    private static final int SUM_OFFSET = 0;
+    private static final int COUNT_OFFSET = 1;
+    private static final int MAX_OFFSET = 2;
+    private static final int HISTOGRAM_OFFSET = 3;
+    // rounded up to whole cache lines, so stripes never share one
+    private static final int STRIPE_LENGTH = (HISTOGRAM_OFFSET + BUCKETS + 15) & ~15;
+
+    private final int stripeMask;
+    private final AtomicLongArray cells;
+
+    /**
+     * Creates a histogram striped across a number of cells
+     * suited to the number of available processors.
+     */
+    public LatencyHistogram() {
+        this(Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param concurrency the expected number of concurrently recording threads
+     */
+    public LatencyHistogram(int concurrency) {
+        int stripes = Integer.highestOneBit(Math.max(1, Math.min(concurrency, 64)) * 2 - 1);
+        this.stripeMask = stripes - 1;
+        this.cells = new AtomicLongArray(stripes * STRIPE_LENGTH);
+    }
+
+    /**
+     * Records a duration, negative durations being recorded as 0.
+     *
+     * @param nanos the duration in nanoseconds
+     */
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        int base = stripe() * STRIPE_LENGTH;
+        this.cells.getAndAdd(base + SUM_OFFSET, value);
+        this.cells.getAndIncrement(base + COUNT_OFFSET);
+        this.cells.getAndIncrement(base + HISTOGRAM_OFFSET + LAYOUT.bucket(value));
+
+        int max = base + MAX_OFFSET;
+        long current;
+        while (value > (current = this.cells.get(max)) && !this.cells.compareAndSet(max, current, value)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * Sums every stripe into an immutable snapshot.
+     *
+     * @return a snapshot of the durations recorded since creation or the last reset
+     */
+    public Series snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Sums every stripe into an immutable snapshot, resetting the histogram.
+     * <p>
+     * Every recorded duration is either part of the returned snapshot, or
+     * kept for the next one. The maximum may be attributed to either.
+     *
+     * @return a snapshot of the durations recorded since creation or the last reset
+     */
+    public Series snapshotAndReset() {
+        return collect(true);
+    }
+
+    private Series collect(boolean reset) {
+        long sum = 0;
+        long count = 0;
+        long max = 0;
+        long[] histogram = new long[BUCKETS];
+        for (int stripe = 0; stripe <= this.stripeMask; stripe++) {
+            int base = stripe * STRIPE_LENGTH;
+            sum += read(base + SUM_OFFSET, reset);
+            count += read(base + COUNT_OFFSET, reset);
+            max = Math.max(max, read(base + MAX_OFFSET, reset));
+            for (int bucket = 0; bucket < BUCKETS; bucket++) {
+                histogram[bucket] += read(base + HISTOGRAM_OFFSET + bucket, reset);
+            }
+        }
+        return new Series(count, sum, max, histogram);
+    }
+
+    private long read(int index, boolean reset) {
+        return reset ? this.cells.getAndSet(index, 0) : this.cells.get(index);
+    }
+
+    private int stripe() {
+        long id = Thread.currentThread().threadId();
+        // spread sequential thread ids
+        return (int) ((id * 0x9E3779B97F4A7C15L) >>> 32) & this.stripeMask;
+    }
+
+    /**
+     * Immutable statistics of a set of recorded durations, in nanoseconds.
+     *
+     * @param count     the number of recorded durations
+     * @param sum       the sum of the recorded durations
+     * @param max       the longest recorded duration
+     * @param histogram the number of recorded durations in each histogram bucket
+     */
+    public record Series(long count, long sum, long max, long[] histogram) {
+
+        public Series {
+            histogram = histogram.clone();
+        }
+
+        /**
+         * @return a copy of the number of recorded durations in each histogram bucket
+         */
+        @Override
+        public long[] histogram() {
+            return this.histogram.clone();
+        }
+
+        /**
+         * @return the average recorded duration, or 0 if nothing was recorded
+         */
+        public double mean() {
+            return this.count == 0 ? 0 : (double) this.sum / this.count;
+        }
+
+        /**
+         * Estimates a percentile of the recorded durations from their histogram.
+         * <p>
+         * The returned value is the upper bound of the histogram bucket
+         * containing the percentile, capped to the maximum.
+         *
+         * @param percentile the percentile, from 0 to 100
+         * @return the estimated duration, or 0 if nothing was recorded
+         */
+        public long percentile(double percentile) {
+            long total = 0;
+            for (long value : this.histogram) {
+                total += value;
+            }
+            if (total == 0) {
+                return 0;
+            }
+
+            long rank = Math.max(1, (long) Math.ceil(total * (percentile / 100)));
+            long seen = 0;
+            for (int bucket = 0; bucket < this.histogram.length; bucket++) {
+                seen += this.histogram[bucket];
+                if (seen >= rank) {
+                    return Math.min(LAYOUT.longUpperBound(bucket), this.max);
+                }
+            }
+            return this.max;
+        }
+    }
+}
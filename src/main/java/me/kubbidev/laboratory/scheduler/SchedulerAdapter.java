@@ -1,5 +1,6 @@
 package me.kubbidev.laboratory.scheduler;
 
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.TimeUnit;
 
@@ -44,6 +45,15 @@ public interface SchedulerAdapter {
      */
     SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit);
 
+    /**
+     * Gets the instrumentation of this scheduler, if it records any
+     *
+     * @return the metrics of this scheduler
+     */
+    default Optional<SchedulerMetrics> getMetrics() {
+        return Optional.empty();
+    }
+
     /**
      * Shuts down the scheduler instance.
      *
@@ -0,0 +1,406 @@
+package me.kubbidev.laboratory.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Instrumentation of a {@link SchedulerAdapter}.
+ * <p>
+ * The scheduler wraps the tasks it hands to its worker with {@link #wrap(Runnable)},
+ * which records how long each task waited before starting and how long it
+ * ran, the latter per task name. Tasks are named after their class, the
+ * lambdas after the class declaring them, unless given a name with
+ * {@link #named(String, Runnable)}. The scheduler also records how late its
+ * delayed tasks are handed over, rejected and cancelled tasks, and exposes
+ * the depth of its queues.
+ * <p>
+ * Timing each task costs two clock reads, a histogram update and usually an
+ * allocation per task, so it is off by default and turned on with
+ * {@link #setTaskTiming(boolean)}. The counters and queue depths are always
+ * kept.
+ */
+@Slf4j
+public final class SchedulerMetrics {
+    private static final ClassValue<String> CLASS_NAMES = new ClassValue<>() {
+        @Override
+        protected String computeValue(Class<?> type) {
+            String name = type.getName();
+            int lambda = name.indexOf("$$Lambda");
+            return lambda == -1 ? name : name.substring(0, lambda);
+        }
+    };
+
+    // the number of task names listed by the periodic dump
+    private static final int DUMPED_TASKS = 5;
+
+    private final LongSupplier schedulerQueue;
+    private final LongSupplier workerQueue;
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LatencyHistogram lag = new LatencyHistogram(1);
+    private final Map<String, LatencyHistogram> execution = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder cancelled = new LongAdder();
+
+    private volatile long startNanos = System.nanoTime();
+
+    // whether the latency, execution time and lag of each task are recorded
+    private volatile boolean taskTiming = false;
+
+    /**
+     * @param schedulerQueue the number of delayed tasks waiting for their time
+     * @param workerQueue    the number of tasks waiting for a worker
+     */
+    public SchedulerMetrics(LongSupplier schedulerQueue, LongSupplier workerQueue) {
+        this.schedulerQueue = Objects.requireNonNull(schedulerQueue, "schedulerQueue");
+        this.workerQueue = Objects.requireNonNull(workerQueue, "workerQueue");
+    }
+
+    /**
+     * Gives a name to a task, its execution time being recorded under this name.
+     *
+     * @param name the name
+     * @param task the task
+     * @return the named task
+     */
+    public static Runnable named(String name, Runnable task) {
+        return new NamedTask(Objects.requireNonNull(name, "name"), Objects.requireNonNull(task, "task"));
+    }
+
+    static String nameOf(Runnable task) {
+        return task instanceof NamedTask named ? named.name() : CLASS_NAMES.get(task.getClass());
+    }
+
+    /**
+     * Gets whether the latency, execution time and lag of each task are recorded
+     *
+     * @return whether tasks are timed
+     */
+    public boolean isTaskTiming() {
+        return this.taskTiming;
+    }
+
+    /**
+     * Enables or disables the timing of each task, disabled by default.
+     * Tasks already wrapped keep recording their timings.
+     *
+     * @param taskTiming whether the latency, execution time and lag of each task are recorded
+     */
+    public void setTaskTiming(boolean taskTiming) {
+        this.taskTiming = taskTiming;
+    }
+
+    /**
+     * Wraps a task about to be handed to the worker, recording its
+     * latency and execution time when it runs.
+     *
+     * @param task the task
+     * @return the instrumented task, or the task itself if tasks are not timed
+     */
+    public Runnable wrap(Runnable task) {
+        return this.taskTiming ? new InstrumentedTask(task, System.nanoTime()) : task;
+    }
+
+    /**
+     * Wraps the task a scheduler thread runs for a delayed or repeating
+     * task, recording how late it runs compared to its schedule.
+     *
+     * @param task     the task
+     * @param delay    the initial delay
+     * @param interval the interval between runs, or 0 if the task does not repeat
+     * @param unit     the unit of delay and interval
+     * @return the instrumented task, or the task itself if tasks are not timed
+     */
+    public Runnable wrapScheduled(Runnable task, long delay, long interval, TimeUnit unit) {
+        if (!this.taskTiming) {
+            return task;
+        }
+        return new ScheduledTask(task, System.nanoTime() + unit.toNanos(Math.max(delay, 0)), unit.toNanos(interval));
+    }
+
+    /**
+     * Records the time a task waited between being handed to the worker and starting.
+     *
+     * @param nanos the latency in nanoseconds
+     */
+    public void recordLatency(long nanos) {
+        this.latency.record(nanos);
+    }
+
+    /**
+     * Records the execution time of a task, under the name of the task.
+     *
+     * @param task  the task
+     * @param nanos the execution time in nanoseconds
+     */
+    public void recordExecution(Runnable task, long nanos) {
+        String name = nameOf(task);
+        LatencyHistogram histogram = this.execution.get(name);
+        if (histogram == null) {
+            histogram = this.execution.computeIfAbsent(name, n -> new LatencyHistogram(2));
+        }
+        histogram.record(nanos);
+    }
+
+    /**
+     * Records how late the scheduler thread handed a delayed or repeating task over.
+     *
+     * @param nanos the lateness in nanoseconds
+     */
+    public void recordLag(long nanos) {
+        this.lag.record(nanos);
+    }
+
+    /**
+     * Records a task rejected by the scheduler.
+     */
+    public void recordRejected() {
+        this.rejected.increment();
+    }
+
+    /**
+     * Records a cancelled delayed or repeating task.
+     */
+    public void recordCancelled() {
+        this.cancelled.increment();
+    }
+
+    /**
+     * @return the number of delayed tasks waiting for their time
+     */
+    public long getSchedulerQueue() {
+        return this.schedulerQueue.getAsLong();
+    }
+
+    /**
+     * @return the number of tasks waiting for a worker
+     */
+    public long getWorkerQueue() {
+        return this.workerQueue.getAsLong();
+    }
+
+    /**
+     * Takes an immutable snapshot of the metrics.
+     *
+     * @return a snapshot of the metrics recorded since creation or the last reset
+     */
+    public Snapshot snapshot() {
+        return collect(false);
+    }
+
+    /**
+     * Takes an immutable snapshot of the metrics, resetting them.
+     *
+     * @return a snapshot of the metrics recorded since creation or the last reset
+     */
+    public Snapshot snapshotAndReset() {
+        return collect(true);
+    }
+
+    private Snapshot collect(boolean reset) {
+        long now = System.nanoTime();
+        long start = this.startNanos;
+        if (reset) {
+            this.startNanos = now;
+        }
+
+        Map<String, LatencyHistogram.Series> execution = new HashMap<>();
+        this.execution.forEach((name, histogram) -> {
+            LatencyHistogram.Series series = reset ? histogram.snapshotAndReset() : histogram.snapshot();
+            if (series.count() != 0) {
+                execution.put(name, series);
+            }
+        });
+        return new Snapshot(
+                Duration.ofNanos(now - start),
+                reset ? this.latency.snapshotAndReset() : this.latency.snapshot(),
+                reset ? this.lag.snapshotAndReset() : this.lag.snapshot(),
+                Collections.unmodifiableMap(execution),
+                getSchedulerQueue(),
+                getWorkerQueue(),
+                reset ? this.rejected.sumThenReset() : this.rejected.sum(),
+                reset ? this.cancelled.sumThenReset() : this.cancelled.sum()
+        );
+    }
+
+    /**
+     * Logs the metrics at a fixed interval, each dump covering the metrics
+     * recorded since the previous one.
+     *
+     * @param scheduler the scheduler running the dump
+     * @param interval  the interval
+     * @param unit      the unit of interval
+     * @return the resultant task instance
+     */
+    public SchedulerTask scheduleDump(SchedulerAdapter scheduler, long interval, TimeUnit unit) {
+        return scheduler.asyncRepeating(named("scheduler-metrics-dump", () -> log.info(snapshotAndReset().toString())), interval, unit);
+    }
+
+    private record NamedTask(String name, Runnable task) implements Runnable {
+
+        @Override
+        public void run() {
+            this.task.run();
+        }
+    }
+
+    private final class InstrumentedTask implements Runnable {
+        private final Runnable task;
+        private final long enqueued;
+
+        InstrumentedTask(Runnable task, long enqueued) {
+            this.task = task;
+            this.enqueued = enqueued;
+        }
+
+        @Override
+        public void run() {
+            long start = System.nanoTime();
+            recordLatency(start - this.enqueued);
+            try {
+                this.task.run();
+            } finally {
+                recordExecution(this.task, System.nanoTime() - start);
+            }
+        }
+    }
+
+    private final class ScheduledTask implements Runnable {
+        private final Runnable task;
+        private final long interval;
+
+        // only accessed by the scheduler thread
+        private long expected;
+
+        ScheduledTask(Runnable task, long expected, long interval) {
+            this.task = task;
+            this.expected = expected;
+            this.interval = interval;
+        }
+
+        @Override
+        public void run() {
+            recordLag(System.nanoTime() - this.expected);
+            this.expected += this.interval;
+            this.task.run();
+        }
+    }
+
+    /**
+     * Immutable metrics of a scheduler recorded over a period of time.
+     */
+    public static final class Snapshot {
+        private final Duration duration;
+        private final LatencyHistogram.Series latency;
+        private final LatencyHistogram.Series lag;
+        private final Map<String, LatencyHistogram.Series> execution;
+        private final long schedulerQueue;
+        private final long workerQueue;
+        private final long rejected;
+        private final long cancelled;
+
+        private Snapshot(Duration duration, LatencyHistogram.Series latency, LatencyHistogram.Series lag,
+                         Map<String, LatencyHistogram.Series> execution, long schedulerQueue, long workerQueue,
+                         long rejected, long cancelled) {
+            this.duration = duration;
+            this.latency = latency;
+            this.lag = lag;
+            this.execution = execution;
+            this.schedulerQueue = schedulerQueue;
+            this.workerQueue = workerQueue;
+            this.rejected = rejected;
+            this.cancelled = cancelled;
+        }
+
+        /**
+         * @return the time elapsed since the metrics were created or last reset
+         */
+        public Duration getDuration() {
+            return this.duration;
+        }
+
+        /**
+         * @return the time tasks waited between being handed to the worker and starting
+         */
+        public LatencyHistogram.Series getLatency() {
+            return this.latency;
+        }
+
+        /**
+         * @return how late the scheduler thread handed delayed and repeating tasks over
+         */
+        public LatencyHistogram.Series getSchedulerLag() {
+            return this.lag;
+        }
+
+        /**
+         * @return the execution time of tasks, by task name
+         */
+        public Map<String, LatencyHistogram.Series> getExecutionTimes() {
+            return this.execution;
+        }
+
+        /**
+         * @return the number of delayed tasks waiting for their time, when the snapshot was taken
+         */
+        public long getSchedulerQueue() {
+            return this.schedulerQueue;
+        }
+
+        /**
+         * @return the number of tasks waiting for a worker, when the snapshot was taken
+         */
+        public long getWorkerQueue() {
+            return this.workerQueue;
+        }
+
+        /**
+         * @return the number of rejected tasks
+         */
+        public long getRejected() {
+            return this.rejected;
+        }
+
+        /**
+         * @return the number of cancelled tasks
+         */
+        public long getCancelled() {
+            return this.cancelled;
+        }
+
+        /**
+         * @return a summary of the metrics, listing the tasks which ran for the longest in total
+         */
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder()
+                    .append("Scheduler metrics over ").append(this.duration.toMillis()).append("ms:")
+                    .append(" scheduler queue ").append(this.schedulerQueue)
+                    .append(", worker queue ").append(this.workerQueue)
+                    .append(", rejected ").append(this.rejected)
+                    .append(", cancelled ").append(this.cancelled)
+                    .append("\n  latency ").append(format(this.latency))
+                    .append("\n  scheduler lag ").append(format(this.lag));
+            this.execution.entrySet().stream()
+                    .sorted(Comparator.comparingLong((Map.Entry<String, LatencyHistogram.Series> e) -> e.getValue().sum()).reversed())
+                    .limit(DUMPED_TASKS)
+                    .forEach(e -> builder.append("\n  ").append(e.getKey()).append(' ').append(format(e.getValue())));
+            return builder.toString();
+        }
+
+        private static String format(LatencyHistogram.Series series) {
+            return String.format("count=%d mean=%.3fms p50=%.3fms p99=%.3fms max=%.3fms",
+                    series.count(), series.mean() / 1e6, series.percentile(50) / 1e6, series.percentile(99) / 1e6, series.max() / 1e6);
+        }
+    }
+}
@@ -0,0 +1,427 @@
+package me.kubbidev.laboratory.scheduler;
+
+import com.google.common.base.Preconditions;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayDeque;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+/**
+ * Implementation of {@link SchedulerAdapter} driven by a fixed rate tick loop,
+ * in the manner of a game loop.
+ * <p>
+ * A single thread runs a fixed number of ticks per second. Tasks handed
+ * to the {@link #sync()} executor are run in batches on that thread, at
+ * most once per tick, until the time budget of the tick is spent. The
+ * remaining tasks are deferred to the next tick, ahead of newer ones.
+ * <p>
+ * Delayed and repeating tasks are counted in ticks, so their delays are
+ * rounded up to the tick duration. Once its queues have grown to their
+ * working size, the tick loop does not allocate, whether
+ * {@link SchedulerMetrics#setTaskTiming(boolean) task timing} is enabled or not.
+ */
+@Slf4j
+public final class TickScheduler implements SchedulerAdapter {
+    // the number of ticks the statistics are computed over
+    private static final int SAMPLES = 100;
+
+    private final int ticksPerSecond;
+    private final long tickNanos;
+    private final long budgetNanos;
+
+    private final Thread ticker;
+    private final WorkerThreadFactory workerThreads = new WorkerThreadFactory();
+    private final ForkJoinPool worker;
+    private final SchedulerMetrics metrics;
+    private final Executor sync = this::executeSync;
+    private final Executor async = this::execute;
+    private volatile boolean running = true;
+
+    // tasks submitted to the sync executor, drained once per tick
+    private final Queue<Runnable> submitted = new ConcurrentLinkedQueue<>();
+
+    // guarded by itself, as well as the node of every task, time is counted in ticks
+    private final TimingWheel<TickTask> wheel = new TimingWheel<>(1, 0);
+    private volatile long currentTick = 0;
+
+    // only used by the ticker
+    private final ArrayDeque<Runnable> backlog = new ArrayDeque<>();
+    private final Consumer<TickTask> expire = this::expire;
+    private final long[] tickDurations = new long[SAMPLES];
+    private final long[] tickStarts = new long[SAMPLES];
+    private long tickDurationSum = 0;
+
+    // statistics, written by the ticker only
+    private volatile long lastTickNanos = 0;
+    private volatile double averageTickNanos = 0;
+    private volatile double tps = 0;
+    private volatile int deferredTasks = 0;
+    private volatile long totalDeferredTasks = 0;
+
+    /**
+     * Creates a scheduler spending up to the whole tick running tasks.
+     *
+     * @param ticksPerSecond the number of ticks per second
+     */
+    public TickScheduler(int ticksPerSecond) {
+        this(ticksPerSecond, TimeUnit.SECONDS.toNanos(1) / ticksPerSecond, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @param ticksPerSecond the number of ticks per second
+     * @param budget         the time each tick may spend running tasks
+     * @param unit           the unit of budget
+     */
+    public TickScheduler(int ticksPerSecond, long budget, TimeUnit unit) {
+        Preconditions.checkArgument(ticksPerSecond > 0 && ticksPerSecond <= 1000, "ticksPerSecond must be between 1 and 1000");
+        Preconditions.checkArgument(budget > 0, "budget must be positive");
+        this.ticksPerSecond = ticksPerSecond;
+        this.tickNanos = TimeUnit.SECONDS.toNanos(1) / ticksPerSecond;
+        this.budgetNanos = Math.min(unit.toNanos(budget), this.tickNanos);
+
+        this.worker = this.workerThreads.newPool();
+        // the backlog is only read by the ticker, between ticks it holds the deferred tasks
+        this.metrics = new SchedulerMetrics(
+                this::pending,
+                () -> this.deferredTasks + this.submitted.size() + this.worker.getQueuedSubmissionCount() + this.worker.getQueuedTaskCount()
+        );
+        this.ticker = new Thread(this::tickLoop, "laboratory-tick");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * Gets the executor running tasks on the tick thread
+     *
+     * @return the sync executor
+     */
+    public Executor sync() {
+        return this.sync;
+    }
+
+    /**
+     * Executes a task on the tick thread, during the next tick
+     *
+     * @param task the task
+     */
+    public void executeSync(Runnable task) {
+        Objects.requireNonNull(task, "task");
+        if (!this.running) {
+            this.metrics.recordRejected();
+            throw new RejectedExecutionException("Scheduler has been shut down");
+        }
+        this.submitted.add(this.metrics.wrap(task));
+    }
+
+    /**
+     * Executes the given task on the tick thread after a number of ticks.
+     *
+     * @param task  the task
+     * @param ticks the delay in ticks
+     * @return the resultant task instance
+     */
+    public SchedulerTask syncLater(Runnable task, long ticks) {
+        return schedule(task, ticks, 0, true);
+    }
+
+    /**
+     * Executes the given task on the tick thread repeatedly, every given number of ticks.
+     *
+     * @param task  the task
+     * @param ticks the interval in ticks
+     * @return the resultant task instance
+     */
+    public SchedulerTask syncRepeating(Runnable task, long ticks) {
+        Preconditions.checkArgument(ticks > 0, "ticks must be positive");
+        return schedule(task, ticks, ticks, true);
+    }
+
+    @Override
+    public Executor async() {
+        return this.async;
+    }
+
+    private void execute(Runnable task) {
+        try {
+            this.worker.execute(this.metrics.wrap(task));
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
+    }
+
+    @Override
+    public Optional<SchedulerMetrics> getMetrics() {
+        return Optional.of(this.metrics);
+    }
+
+    @Override
+    public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, toTicks(delay, unit), 0, false);
+    }
+
+    @Override
+    public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
+        long ticks = Math.max(toTicks(interval, unit), 1);
+        return schedule(task, ticks, ticks, false);
+    }
+
+    private long toTicks(long duration, TimeUnit unit) {
+        long nanos = unit.toNanos(duration);
+        return nanos <= 0 ? 0 : (nanos + this.tickNanos - 1) / this.tickNanos;
+    }
+
+    private SchedulerTask schedule(Runnable runnable, long delay, long interval, boolean sync) {
+        TickTask task = new TickTask(Objects.requireNonNull(runnable, "task"), interval, sync);
+        synchronized (this.wheel) {
+            if (!this.running) {
+                this.metrics.recordRejected();
+                throw new RejectedExecutionException("Scheduler has been shut down");
+            }
+            task.node = this.wheel.schedule(task, this.currentTick + Math.max(delay, 0));
+        }
+        return task;
+    }
+
+    /**
+     * @return the number of pending delayed and repeating tasks
+     */
+    public int pending() {
+        synchronized (this.wheel) {
+            return this.wheel.size();
+        }
+    }
+
+    /**
+     * @return the number of ticks per second this scheduler aims for
+     */
+    public int getTargetTps() {
+        return this.ticksPerSecond;
+    }
+
+    /**
+     * @return the number of ticks run since this scheduler was created
+     */
+    public long getCurrentTick() {
+        return this.currentTick;
+    }
+
+    /**
+     * @return the number of ticks per second over the last ticks
+     */
+    public double getTps() {
+        return this.tps;
+    }
+
+    /**
+     * @return the duration of the last tick in nanoseconds
+     */
+    public long getLastTickNanos() {
+        return this.lastTickNanos;
+    }
+
+    /**
+     * @return the average duration of the last ticks in nanoseconds
+     */
+    public double getAverageTickNanos() {
+        return this.averageTickNanos;
+    }
+
+    /**
+     * @return the number of tasks the last tick deferred to the next one
+     */
+    public int getDeferredTasks() {
+        return this.deferredTasks;
+    }
+
+    /**
+     * @return the number of times tasks have been deferred since this scheduler was created
+     */
+    public long getTotalDeferredTasks() {
+        return this.totalDeferredTasks;
+    }
+
+    private void tickLoop() {
+        long nextTick = System.nanoTime();
+        while (this.running) {
+            long delay = nextTick - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(this, delay);
+                continue;
+            }
+
+            long start = System.nanoTime();
+            if (this.metrics.isTaskTiming()) {
+                // every task due this tick is handed over as late as the tick starts
+                this.metrics.recordLag(start - nextTick);
+            }
+            tick(start);
+            long end = System.nanoTime();
+            record(start, end - start);
+
+            nextTick += this.tickNanos;
+            if (end - nextTick > TimeUnit.SECONDS.toNanos(1)) {
+                // too far behind to catch up, skip the missed ticks
+                nextTick = end;
+            }
+        }
+    }
+
+    private void tick(long start) {
+        // deferred tasks run first, the ones submitted while running tasks wait for the next tick
+        Runnable task;
+        while ((task = this.submitted.poll()) != null) {
+            this.backlog.add(task);
+        }
+        synchronized (this.wheel) {
+            long tick = this.currentTick + 1;
+            this.wheel.advance(tick, this.expire);
+            this.currentTick = tick;
+        }
+
+        long deadline = start + this.budgetNanos;
+        while ((task = this.backlog.poll()) != null) {
+            try {
+                task.run();
+            } catch (Throwable e) {
+                log.warn("Tick task threw an exception", e);
+            }
+            if (System.nanoTime() - deadline >= 0) {
+                break;
+            }
+        }
+
+        int deferred = this.backlog.size();
+        this.deferredTasks = deferred;
+        if (deferred != 0) {
+            this.totalDeferredTasks += deferred;
+        }
+    }
+
+    /**
+     * Dispatches an expired task, scheduling it again if it repeats. Called with the wheel held.
+     */
+    private void expire(TickTask task) {
+        if (task.interval > 0) {
+            this.wheel.reschedule(task.node, task.node.getDeadline() + task.interval);
+        }
+        task.stamp(this.metrics.isTaskTiming());
+        if (task.sync) {
+            this.backlog.add(task);
+        } else {
+            try {
+                this.worker.execute(task);
+            } catch (RejectedExecutionException e) {
+                // the executor has been shut down
+                this.metrics.recordRejected();
+            }
+        }
+    }
+
+    private void record(long start, long duration) {
+        int index = (int) (this.currentTick % SAMPLES);
+        this.tickDurationSum += duration - this.tickDurations[index];
+        this.tickDurations[index] = duration;
+        long oldest = this.tickStarts[index];
+        this.tickStarts[index] = start;
+
+        int samples = (int) Math.min(this.currentTick, SAMPLES);
+        this.lastTickNanos = duration;
+        this.averageTickNanos = (double) this.tickDurationSum / samples;
+        if (this.currentTick > SAMPLES) {
+            // the slot held the start of the tick SAMPLES ticks ago
+            this.tps = Math.min(SAMPLES * 1e9 / (start - oldest), this.ticksPerSecond);
+        } else {
+            this.tps = this.ticksPerSecond;
+        }
+    }
+
+    @Override
+    public void shutdownScheduler() {
+        synchronized (this.wheel) {
+            this.running = false;
+        }
+        LockSupport.unpark(this.ticker);
+        try {
+            this.ticker.join(TimeUnit.MINUTES.toMillis(1));
+            if (this.ticker.isAlive()) {
+                log.error("Timed out waiting for the Laboratory tick thread to terminate");
+                WorkerThreadFactory.reportRunningTask(this.ticker, this.ticker.getStackTrace());
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the Laboratory tick thread to terminate", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void shutdownExecutor() {
+        this.workerThreads.shutdown(this.worker);
+    }
+
+    private final class TickTask implements SchedulerTask, Runnable {
+        private final Runnable runnable;
+
+        // the interval in ticks between two runs, or 0 if the task does not repeat
+        private final long interval;
+        private final boolean sync;
+
+        // guarded by the wheel
+        private TimingWheel.@Nullable Node<TickTask> node;
+        private volatile boolean cancelled;
+
+        // when the task was last handed over, if timed, set by the ticker before handing it over
+        private long enqueued;
+        private volatile boolean timed;
+
+        TickTask(Runnable runnable, long interval, boolean sync) {
+            this.runnable = runnable;
+            this.interval = interval;
+            this.sync = sync;
+        }
+
+        /**
+         * Records the time the task is handed over, in place of wrapping it.
+         */
+        void stamp(boolean timed) {
+            if (timed) {
+                this.enqueued = System.nanoTime();
+            }
+            this.timed = timed;
+        }
+
+        @Override
+        public void run() {
+            if (this.cancelled) {
+                return;
+            }
+            if (!this.timed) {
+                this.runnable.run();
+                return;
+            }
+            long start = System.nanoTime();
+            TickScheduler.this.metrics.recordLatency(start - this.enqueued);
+            try {
+                this.runnable.run();
+            } finally {
+                TickScheduler.this.metrics.recordExecution(this.runnable, System.nanoTime() - start);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (TickScheduler.this.wheel) {
+                this.cancelled = true;
+                if (this.node != null && TickScheduler.this.wheel.cancel(this.node)) {
+                    TickScheduler.this.metrics.recordCancelled();
+                }
+            }
+        }
+    }
+}
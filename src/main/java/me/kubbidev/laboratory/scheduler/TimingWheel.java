@@ -0,0 +1,248 @@
+package me.kubbidev.laboratory.scheduler;
+
+import com.google.common.base.Preconditions;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * A hierarchical timing wheel, keeping track of deadlines with a fixed resolution.
+ * <p>
+ * Deadlines are rounded up to the next tick. Each level of the wheel holds
+ * {@value #WHEEL_SIZE} slots, every slot of a level spanning a whole turn
+ * of the level below; elements are moved down a level when their slot
+ * comes up, until they expire from the lowest level. Scheduling and
+ * cancelling are constant time, and advancing the wheel only visits the
+ * elements expiring or moving down a level.
+ * <p>
+ * Elements are held by intrusive {@link Node}s, which are returned when
+ * scheduling and can be used to cancel or reschedule the element.
+ * <p>
+ * Timing wheels are not thread safe.
+ *
+ * @param <E> the type of element
+ */
+public final class TimingWheel<E> {
+    private static final int WHEEL_BITS = 6;
+    private static final int WHEEL_SIZE = 1 << WHEEL_BITS;
+    private static final int WHEEL_MASK = WHEEL_SIZE - 1;
+    private static final int LEVELS = 5;
+
+    // the longest delay in ticks the wheel can hold, longer delays are placed again on the way
+    private static final long MAX_DELAY = (1L << (WHEEL_BITS * LEVELS)) - 1;
+
+    private final long tickMillis;
+
+    // slot heads, indexed by level * WHEEL_SIZE + slot
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private final Node<E>[] slots = new Node[LEVELS * WHEEL_SIZE];
+
+    // the last processed tick
+    private long currentTick;
+    private int size;
+
+    /**
+     * @param tickMillis the resolution of the wheel in milliseconds
+     * @param now        the current time in milliseconds
+     */
+    public TimingWheel(long tickMillis, long now) {
+        Preconditions.checkArgument(tickMillis > 0, "tick must be strictly positive");
+        this.tickMillis = tickMillis;
+        this.currentTick = now / tickMillis;
+    }
+
+    /**
+     * @return the resolution of this wheel in milliseconds
+     */
+    public long getTickMillis() {
+        return this.tickMillis;
+    }
+
+    /**
+     * @return the number of scheduled elements
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Schedules an element.
+     *
+     * @param element  the element
+     * @param deadline the time in milliseconds at which the element expires
+     * @return the node holding the element
+     */
+    public Node<E> schedule(E element, long deadline) {
+        Node<E> node = new Node<>(this, Objects.requireNonNull(element, "element"));
+        node.deadline = deadline;
+        insert(node);
+        this.size++;
+        return node;
+    }
+
+    /**
+     * Changes the deadline of a scheduled element, or schedules it
+     * again if it has already expired or been cancelled.
+     *
+     * @param node     the node holding the element
+     * @param deadline the new time in milliseconds at which the element expires
+     */
+    public void reschedule(Node<E> node, long deadline) {
+        Preconditions.checkArgument(node.wheel == this, "node belongs to another wheel");
+        if (node.isScheduled()) {
+            unlink(node);
+        } else {
+            this.size++;
+        }
+        node.deadline = deadline;
+        insert(node);
+    }
+
+    /**
+     * Cancels a scheduled element.
+     *
+     * @param node the node holding the element
+     * @return true if the element was scheduled
+     */
+    public boolean cancel(Node<E> node) {
+        Preconditions.checkArgument(node.wheel == this, "node belongs to another wheel");
+        if (!node.isScheduled()) {
+            return false;
+        }
+        unlink(node);
+        this.size--;
+        return true;
+    }
+
+    /**
+     * Advances the wheel up to the given time, handing every
+     * expired element to the given consumer, tick after tick.
+     * <p>
+     * The consumer may schedule, reschedule or cancel elements.
+     *
+     * @param now     the current time in milliseconds
+     * @param expired the consumer of expired elements
+     * @return the number of expired elements
+     */
+    public int advance(long now, Consumer<? super E> expired) {
+        long targetTick = now / this.tickMillis;
+        int count = 0;
+        while (this.currentTick < targetTick) {
+            if (this.size == 0) {
+                // nothing can expire in between
+                this.currentTick = targetTick;
+                break;
+            }
+            long tick = this.currentTick + 1;
+
+            // move elements down from the levels starting a new slot
+            for (int level = 1; level < LEVELS && (tick & ((1L << (WHEEL_BITS * level)) - 1)) == 0; level++) {
+                cascade(level, (int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+            }
+            this.currentTick = tick;
+
+            int index = (int) tick & WHEEL_MASK;
+            Node<E> node;
+            while ((node = this.slots[index]) != null) {
+                unlink(node);
+                this.size--;
+                count++;
+                expired.accept(node.element);
+            }
+        }
+        return count;
+    }
+
+    private void cascade(int level, int slot) {
+        int index = level * WHEEL_SIZE + slot;
+        Node<E> node = this.slots[index];
+        this.slots[index] = null;
+        while (node != null) {
+            Node<E> next = node.next;
+            node.prev = node.next = null;
+            node.index = -1;
+            insert(node);
+            node = next;
+        }
+    }
+
+    private void insert(Node<E> node) {
+        // the next tick to be processed
+        long base = this.currentTick + 1;
+
+        // round up, so elements never expire before their deadline
+        long deadlineTick = Math.floorDiv(node.deadline + this.tickMillis - 1, this.tickMillis);
+        long delay = Math.min(Math.max(deadlineTick - base, 0), MAX_DELAY);
+        long tick = base + delay;
+
+        // the lowest level covering the delay, slots which already came up this turn are reached next turn
+        int level = 0;
+        while (delay >= (1L << (WHEEL_BITS * (level + 1)))) {
+            level++;
+        }
+        int index = level * WHEEL_SIZE + ((int) (tick >>> (WHEEL_BITS * level)) & WHEEL_MASK);
+
+        Node<E> head = this.slots[index];
+        node.index = index;
+        node.prev = null;
+        node.next = head;
+        if (head != null) {
+            head.prev = node;
+        }
+        this.slots[index] = node;
+    }
+
+    private void unlink(Node<E> node) {
+        if (node.prev == null) {
+            this.slots[node.index] = node.next;
+        } else {
+            node.prev.next = node.next;
+        }
+        if (node.next != null) {
+            node.next.prev = node.prev;
+        }
+        node.prev = node.next = null;
+        node.index = -1;
+    }
+
+    /**
+     * A node of a timing wheel, holding a scheduled element.
+     *
+     * @param <E> the type of element
+     */
+    public static final class Node<E> {
+        private final TimingWheel<E> wheel;
+        private final E element;
+
+        private long deadline;
+
+        // position in the wheel, -1 when not scheduled
+        private int index = -1;
+        private @Nullable Node<E> prev;
+        private @Nullable Node<E> next;
+
+        private Node(TimingWheel<E> wheel, E element) {
+            this.wheel = wheel;
+            this.element = element;
+        }
+
+        public E getElement() {
+            return this.element;
+        }
+
+        /**
+         * @return the time in milliseconds at which the element expires
+         */
+        public long getDeadline() {
+            return this.deadline;
+        }
+
+        /**
+         * @return true if the element is waiting in the wheel
+         */
+        public boolean isScheduled() {
+            return this.index >= 0;
+        }
+    }
+}
@@ -0,0 +1,266 @@
+package me.kubbidev.laboratory.scheduler;
+
+import com.google.common.base.Preconditions;
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Implementation of {@link SchedulerAdapter} keeping delayed and repeating
+ * tasks in a {@link TimingWheel}.
+ * <p>
+ * Scheduling and cancelling a task are constant time, whatever the number
+ * of pending tasks. A single platform thread advances the wheel once per
+ * tick, and hands expired tasks over to the worker pool in batches, so
+ * dispatching costs one submission per batch rather than per task.
+ * <p>
+ * Delays are rounded up to the tick resolution, so tasks never run early
+ * but may run up to a tick late. Repeating tasks run at a fixed rate, and
+ * intervals shorter than a tick are lengthened to a tick.
+ */
+@Slf4j
+public final class TimingWheelScheduler implements SchedulerAdapter {
+    private static final int BATCH_SIZE = 64;
+
+    private final long tickMillis;
+    private final long tickNanos;
+
+    // the origin of the monotonic time of the wheel
+    private final long origin = System.nanoTime();
+
+    // guarded by itself, as well as the node of every task
+    private final TimingWheel<WheelTask> wheel;
+
+    private final Thread ticker;
+    private final WorkerThreadFactory workerThreads = new WorkerThreadFactory();
+    private final ForkJoinPool worker;
+    private final SchedulerMetrics metrics;
+    private final Executor async = this::execute;
+    private volatile boolean running = true;
+
+    // only used by the ticker
+    private final List<WheelTask> expired = new ArrayList<>();
+
+    public TimingWheelScheduler() {
+        this(10, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param tick the resolution of the scheduler
+     * @param unit the unit of the resolution
+     */
+    public TimingWheelScheduler(long tick, TimeUnit unit) {
+        Preconditions.checkArgument(unit.toMillis(tick) > 0, "tick must be at least a millisecond");
+        this.tickMillis = unit.toMillis(tick);
+        this.tickNanos = TimeUnit.MILLISECONDS.toNanos(this.tickMillis);
+        this.wheel = new TimingWheel<>(this.tickMillis, 0);
+
+        this.worker = this.workerThreads.newPool();
+        this.metrics = new SchedulerMetrics(
+                this::pending,
+                () -> this.worker.getQueuedSubmissionCount() + this.worker.getQueuedTaskCount()
+        );
+        this.ticker = new Thread(this::tickLoop, "laboratory-scheduler");
+        this.ticker.setDaemon(true);
+        this.ticker.start();
+    }
+
+    /**
+     * @return the resolution of this scheduler in milliseconds
+     */
+    public long getTickMillis() {
+        return this.tickMillis;
+    }
+
+    /**
+     * @return the number of pending delayed and repeating tasks
+     */
+    public int pending() {
+        synchronized (this.wheel) {
+            return this.wheel.size();
+        }
+    }
+
+    private void execute(Runnable task) {
+        try {
+            this.worker.execute(this.metrics.wrap(task));
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
+    }
+
+    @Override
+    public Executor async() {
+        return this.async;
+    }
+
+    @Override
+    public Optional<SchedulerMetrics> getMetrics() {
+        return Optional.of(this.metrics);
+    }
+
+    @Override
+    public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, unit.toNanos(delay), 0);
+    }
+
+    @Override
+    public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
+        long intervalMillis = Math.max(Math.ceilDiv(unit.toNanos(interval), TimeUnit.MILLISECONDS.toNanos(1)), this.tickMillis);
+        return schedule(task, TimeUnit.MILLISECONDS.toNanos(intervalMillis), intervalMillis);
+    }
+
+    private SchedulerTask schedule(Runnable runnable, long delayNanos, long interval) {
+        WheelTask task = new WheelTask(Objects.requireNonNull(runnable, "task"), interval);
+        // rounded up, as the current time in millis is rounded down
+        long elapsed = System.nanoTime() - this.origin;
+        long deadline = Math.ceilDiv(elapsed + Math.min(Math.max(delayNanos, 0), Long.MAX_VALUE - elapsed), TimeUnit.MILLISECONDS.toNanos(1));
+        synchronized (this.wheel) {
+            if (!this.running) {
+                this.metrics.recordRejected();
+                throw new RejectedExecutionException("Scheduler has been shut down");
+            }
+            task.node = this.wheel.schedule(task, deadline);
+        }
+        return task;
+    }
+
+    private long now() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - this.origin);
+    }
+
+    private void tickLoop() {
+        long nextTick = System.nanoTime() + this.tickNanos;
+        while (this.running) {
+            long delay = nextTick - System.nanoTime();
+            if (delay > 0) {
+                LockSupport.parkNanos(this, delay);
+                continue;
+            }
+            nextTick += this.tickNanos;
+
+            long now = now();
+            synchronized (this.wheel) {
+                this.wheel.advance(now, this::expire);
+            }
+            if (this.metrics.isTaskTiming()) {
+                for (WheelTask task : this.expired) {
+                    this.metrics.recordLag(TimeUnit.MILLISECONDS.toNanos(now - task.deadline));
+                }
+            }
+            dispatch();
+        }
+    }
+
+    /**
+     * Collects an expired task, scheduling it again if it repeats. Called with the wheel held.
+     */
+    private void expire(WheelTask task) {
+        task.deadline = task.node.getDeadline();
+        if (task.interval > 0) {
+            this.wheel.reschedule(task.node, task.node.getDeadline() + task.interval);
+        }
+        this.expired.add(task);
+    }
+
+    /**
+     * Hands the expired tasks over to the worker pool, in batches.
+     */
+    private void dispatch() {
+        int size = this.expired.size();
+        boolean timing = this.metrics.isTaskTiming();
+        for (int from = 0; from < size; from += BATCH_SIZE) {
+            WheelTask[] batch = this.expired.subList(from, Math.min(from + BATCH_SIZE, size)).toArray(new WheelTask[0]);
+            long enqueued = System.nanoTime();
+            try {
+                this.worker.execute(() -> {
+                    for (WheelTask task : batch) {
+                        if (!timing) {
+                            task.run();
+                            continue;
+                        }
+                        long start = System.nanoTime();
+                        this.metrics.recordLatency(start - enqueued);
+                        task.run();
+                        this.metrics.recordExecution(task.runnable, System.nanoTime() - start);
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // the executor has been shut down
+                this.metrics.recordRejected();
+                break;
+            }
+        }
+        this.expired.clear();
+    }
+
+    @Override
+    public void shutdownScheduler() {
+        synchronized (this.wheel) {
+            this.running = false;
+        }
+        LockSupport.unpark(this.ticker);
+        try {
+            this.ticker.join(TimeUnit.MINUTES.toMillis(1));
+            if (this.ticker.isAlive()) {
+                log.error("Timed out waiting for the Laboratory scheduler to terminate");
+                WorkerThreadFactory.reportRunningTask(this.ticker, this.ticker.getStackTrace());
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the Laboratory scheduler to terminate", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void shutdownExecutor() {
+        this.workerThreads.shutdown(this.worker);
+    }
+
+    private final class WheelTask implements SchedulerTask {
+        private final Runnable runnable;
+
+        // the interval in millis between two runs, or 0 if the task does not repeat
+        private final long interval;
+
+        // guarded by the wheel
+        private TimingWheel.@Nullable Node<WheelTask> node;
+        private volatile boolean cancelled;
+
+        // the deadline of the last expiry, only used by the ticker
+        private long deadline;
+
+        WheelTask(Runnable runnable, long interval) {
+            this.runnable = runnable;
+            this.interval = interval;
+        }
+
+        void run() {
+            if (this.cancelled) {
+                return;
+            }
+            try {
+                this.runnable.run();
+            } catch (Throwable e) {
+                log.warn("Scheduled task threw an exception", e);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (TimingWheelScheduler.this.wheel) {
+                this.cancelled = true;
+                if (this.node != null && TimingWheelScheduler.this.wheel.cancel(this.node)) {
+                    TimingWheelScheduler.this.metrics.recordCancelled();
+                }
+            }
+        }
+    }
+}
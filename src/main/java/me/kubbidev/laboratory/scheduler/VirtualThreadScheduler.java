@@ -0,0 +1,132 @@
+package me.kubbidev.laboratory.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.*;
+
+/**
+ * Implementation of {@link SchedulerAdapter} running every task on its own virtual thread.
+ * <p>
+ * Tasks blocking on I/O only park their virtual thread, so they do not
+ * starve the other tasks the way they would on a fixed size pool. Timing
+ * is still handled by a single platform thread, which only hands tasks
+ * over to new virtual threads.
+ */
+@Slf4j
+public class VirtualThreadScheduler implements SchedulerAdapter {
+    private final ScheduledThreadPoolExecutor scheduler;
+    private final ExecutorService worker;
+
+    // virtual threads are not listed by Thread.getAllStackTraces, so the running ones are tracked
+    private final Set<Thread> running = ConcurrentHashMap.newKeySet();
+    private final Executor tracked = this::execute;
+    private final SchedulerMetrics metrics;
+
+    public VirtualThreadScheduler() {
+        this.scheduler = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread thread = Executors.defaultThreadFactory().newThread(r);
+            thread.setName("laboratory-scheduler");
+            return thread;
+        });
+        this.scheduler.setRemoveOnCancelPolicy(true);
+        this.scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        this.worker = Executors.newThreadPerTaskExecutor(Thread.ofVirtual()
+                .name("laboratory-virtual-worker-", 0)
+                .uncaughtExceptionHandler((t, e) -> log.warn("Thread " + t.getName() + " threw an uncaught exception", e))
+                .factory());
+        // tasks never wait for a worker, the ones started but not finished are reported instead
+        this.metrics = new SchedulerMetrics(() -> this.scheduler.getQueue().size(), this.running::size);
+    }
+
+    private void execute(Runnable task) {
+        Runnable instrumented = this.metrics.wrap(task);
+        try {
+            this.worker.execute(() -> {
+                Thread thread = Thread.currentThread();
+                this.running.add(thread);
+                try {
+                    instrumented.run();
+                } finally {
+                    this.running.remove(thread);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
+    }
+
+    @Override
+    public Executor async() {
+        return this.tracked;
+    }
+
+    @Override
+    public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
+        try {
+            ScheduledFuture<?> future = this.scheduler.schedule(this.metrics.wrapScheduled(() -> execute(task), delay, 0, unit), delay, unit);
+            return () -> cancel(future);
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
+    }
+
+    @Override
+    public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
+        try {
+            ScheduledFuture<?> future = this.scheduler.scheduleAtFixedRate(this.metrics.wrapScheduled(() -> execute(task), interval, interval, unit), interval, interval, unit);
+            return () -> cancel(future);
+        } catch (RejectedExecutionException e) {
+            this.metrics.recordRejected();
+            throw e;
+        }
+    }
+
+    private void cancel(ScheduledFuture<?> future) {
+        if (future.cancel(false)) {
+            this.metrics.recordCancelled();
+        }
+    }
+
+    @Override
+    public Optional<SchedulerMetrics> getMetrics() {
+        return Optional.of(this.metrics);
+    }
+
+    @Override
+    public void shutdownScheduler() {
+        this.scheduler.shutdown();
+        try {
+            if (!this.scheduler.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.error("Timed out waiting for the Laboratory scheduler to terminate");
+                Thread.getAllStackTraces().forEach((thread, stack) -> {
+                    if (thread.getName().equals("laboratory-scheduler")) {
+                        WorkerThreadFactory.reportRunningTask(thread, stack);
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the Laboratory scheduler to terminate", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void shutdownExecutor() {
+        this.worker.shutdown();
+        try {
+            if (!this.worker.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.error("Timed out waiting for the Laboratory virtual worker threads to terminate");
+                for (Thread thread : this.running) {
+                    WorkerThreadFactory.reportRunningTask(thread, thread.getStackTrace());
+                }
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the Laboratory virtual worker threads to terminate", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+}
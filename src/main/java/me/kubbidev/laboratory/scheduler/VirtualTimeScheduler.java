@@ -0,0 +1,264 @@
+package me.kubbidev.laboratory.scheduler;
+
+import com.google.common.base.Preconditions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of {@link SchedulerAdapter} driven by a virtual clock, for
+ * tests, simulations and deterministic benchmarks.
+ * <p>
+ * Time only moves when {@link #advance(long, TimeUnit)} is called, which runs
+ * every task falling due on the calling thread, setting the clock to the
+ * deadline of each task before running it. Hours or days of scheduling
+ * therefore take as long as the tasks themselves.
+ * <p>
+ * Tasks run in order of deadline, and tasks sharing a deadline in the order
+ * they were scheduled, so a run is fully reproducible. Async tasks are due
+ * immediately, and run on the next advance. Repeating tasks run at a fixed
+ * rate.
+ * <p>
+ * Tasks may be scheduled from any thread, but the clock is meant to be
+ * advanced by a single one.
+ */
+@Slf4j
+public class VirtualTimeScheduler implements SchedulerAdapter {
+    private final Instant origin;
+    private final Clock clock;
+    private final Executor async = this::execute;
+
+    // guarded by itself
+    private final PriorityQueue<VirtualTask> queue = new PriorityQueue<>();
+    private long sequence = 0;
+    private boolean schedulerRunning = true;
+    private boolean executorRunning = true;
+
+    // the virtual time in nanoseconds since the origin
+    private volatile long now = 0;
+
+    /**
+     * Creates a scheduler whose clock starts at the current time, in the system default time-zone.
+     */
+    public VirtualTimeScheduler() {
+        this(Instant.now(), ZoneId.systemDefault());
+    }
+
+    /**
+     * @param start the instant the clock starts at
+     * @param zone  the time-zone of the clock
+     */
+    public VirtualTimeScheduler(Instant start, ZoneId zone) {
+        this.origin = Objects.requireNonNull(start, "start");
+        this.clock = new VirtualClock(Objects.requireNonNull(zone, "zone"));
+    }
+
+    /**
+     * Gets the clock of this scheduler, which only moves when the scheduler advances
+     *
+     * @return the virtual clock
+     */
+    public Clock getClock() {
+        return this.clock;
+    }
+
+    /**
+     * @return the number of pending tasks
+     */
+    public int pending() {
+        synchronized (this.queue) {
+            return this.queue.size();
+        }
+    }
+
+    /**
+     * Moves the clock forward, running every task due until then.
+     *
+     * @param duration the amount of time
+     * @return the number of tasks run
+     */
+    public long advance(Duration duration) {
+        return advance(duration.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Moves the clock forward, running every task due until then.
+     *
+     * @param amount the amount of time
+     * @param unit   the unit of time
+     * @return the number of tasks run
+     */
+    public long advance(long amount, TimeUnit unit) {
+        Preconditions.checkArgument(amount >= 0, "amount cannot be negative");
+        long target = this.now + unit.toNanos(amount);
+        long ran = 0;
+        while (true) {
+            VirtualTask task;
+            synchronized (this.queue) {
+                task = this.queue.peek();
+                if (task == null || task.deadline > target) {
+                    break;
+                }
+                this.queue.poll();
+                this.now = Math.max(this.now, task.deadline);
+                if (task.interval > 0) {
+                    task.deadline += task.interval;
+                    task.sequence = this.sequence++;
+                    this.queue.add(task);
+                }
+            }
+            task.run();
+            ran++;
+        }
+        this.now = target;
+        return ran;
+    }
+
+    /**
+     * Runs the tasks which are already due, without moving the clock.
+     *
+     * @return the number of tasks run
+     */
+    public long runPending() {
+        return advance(0, TimeUnit.NANOSECONDS);
+    }
+
+    private void execute(Runnable task) {
+        synchronized (this.queue) {
+            if (!this.executorRunning) {
+                throw new RejectedExecutionException("Executor has been shut down");
+            }
+            enqueue(task, 0, 0, false);
+        }
+    }
+
+    @Override
+    public Executor async() {
+        return this.async;
+    }
+
+    @Override
+    public SchedulerTask asyncLater(Runnable task, long delay, TimeUnit unit) {
+        return schedule(task, unit.toNanos(Math.max(delay, 0)), 0);
+    }
+
+    @Override
+    public SchedulerTask asyncRepeating(Runnable task, long interval, TimeUnit unit) {
+        Preconditions.checkArgument(interval > 0, "interval must be positive");
+        return schedule(task, unit.toNanos(interval), unit.toNanos(interval));
+    }
+
+    private SchedulerTask schedule(Runnable task, long delay, long interval) {
+        synchronized (this.queue) {
+            if (!this.schedulerRunning) {
+                throw new RejectedExecutionException("Scheduler has been shut down");
+            }
+            return enqueue(task, delay, interval, true);
+        }
+    }
+
+    /**
+     * Queues a task. Called with the queue held.
+     */
+    private VirtualTask enqueue(Runnable runnable, long delay, long interval, boolean delayed) {
+        VirtualTask task = new VirtualTask(Objects.requireNonNull(runnable, "task"), this.now + delay, interval, delayed);
+        task.sequence = this.sequence++;
+        this.queue.add(task);
+        return task;
+    }
+
+    @Override
+    public void shutdownScheduler() {
+        synchronized (this.queue) {
+            this.schedulerRunning = false;
+            this.queue.removeIf(task -> task.delayed);
+        }
+    }
+
+    @Override
+    public void shutdownExecutor() {
+        synchronized (this.queue) {
+            this.executorRunning = false;
+            this.queue.removeIf(task -> !task.delayed);
+        }
+    }
+
+    private final class VirtualTask implements SchedulerTask, Comparable<VirtualTask> {
+        private final Runnable runnable;
+
+        // the interval in nanos between two runs, or 0 if the task does not repeat
+        private final long interval;
+
+        // whether the task was scheduled with a delay, rather than submitted to the executor
+        private final boolean delayed;
+
+        // guarded by the queue
+        private long deadline;
+        private long sequence;
+
+        private volatile boolean cancelled;
+
+        VirtualTask(Runnable runnable, long deadline, long interval, boolean delayed) {
+            this.runnable = runnable;
+            this.deadline = deadline;
+            this.interval = interval;
+            this.delayed = delayed;
+        }
+
+        void run() {
+            if (this.cancelled) {
+                return;
+            }
+            try {
+                this.runnable.run();
+            } catch (Throwable e) {
+                log.warn("Scheduled task threw an exception", e);
+            }
+        }
+
+        @Override
+        public void cancel() {
+            synchronized (VirtualTimeScheduler.this.queue) {
+                this.cancelled = true;
+                VirtualTimeScheduler.this.queue.remove(this);
+            }
+        }
+
+        @Override
+        public int compareTo(VirtualTask other) {
+            int compare = Long.compare(this.deadline, other.deadline);
+            return compare != 0 ? compare : Long.compare(this.sequence, other.sequence);
+        }
+    }
+
+    private final class VirtualClock extends Clock {
+        private final ZoneId zone;
+
+        VirtualClock(ZoneId zone) {
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return this.zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return zone.equals(this.zone) ? this : new VirtualClock(zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return VirtualTimeScheduler.this.origin.plusNanos(VirtualTimeScheduler.this.now);
+        }
+    }
+}
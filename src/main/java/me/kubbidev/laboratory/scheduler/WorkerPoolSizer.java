@@ -0,0 +1,223 @@
+package me.kubbidev.laboratory.scheduler;
+
+import com.google.common.base.Preconditions;
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Adapts the parallelism of a worker pool to the observed load.
+ * <p>
+ * The pool is sampled at a fixed interval, and resized every
+ * {@link #SAMPLES_PER_DECISION} samples. The share of the time busy workers
+ * spend blocked, rather than on a processor, is estimated from their CPU
+ * time: while tasks are waiting for a worker, the pool is sized so that the
+ * available processors are kept busy, that is {@code processors / (1 - blocked)},
+ * unless they already are.
+ * When it is mostly idle, the pool shrinks down towards the number of
+ * workers actually in use. Each decision at most doubles or halves the
+ * parallelism, within the configured bounds.
+ * <p>
+ * Workers blocked through {@link AsyncJavaScheduler#block(java.util.function.Supplier)}
+ * are compensated by the pool right away, so they are not accounted for
+ * as blocking here.
+ */
+@Slf4j
+public final class WorkerPoolSizer {
+    static final int SAMPLES_PER_DECISION = 10;
+
+    // the number of resizes kept by getRecentResizes
+    private static final int RECENT_RESIZES = 32;
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private final ForkJoinPool pool;
+    private final Set<Thread> workers;
+    private final AtomicInteger managedBlocked;
+    private final int processors;
+    private final int minParallelism;
+    private final int maxParallelism;
+
+    // only accessed by the thread sampling the pool
+    private int samples = 0;
+    private long activeSum = 0;
+    private long managedSum = 0;
+    private long backlog = 0;
+    private long lastDecision = System.nanoTime();
+    private Map<Long, Long> cpuTimes = new HashMap<>();
+
+    // guarded by itself
+    private final ArrayDeque<Resize> recentResizes = new ArrayDeque<>();
+    private volatile double blockingRatio = 0;
+    private volatile long resizes = 0;
+
+    WorkerPoolSizer(ForkJoinPool pool, Set<Thread> workers, AtomicInteger managedBlocked, int minParallelism, int maxParallelism) {
+        Preconditions.checkArgument(minParallelism > 0, "minParallelism must be positive");
+        Preconditions.checkArgument(maxParallelism >= minParallelism, "maxParallelism must be at least minParallelism");
+        this.pool = pool;
+        this.workers = workers;
+        this.managedBlocked = managedBlocked;
+        this.processors = Runtime.getRuntime().availableProcessors();
+        this.minParallelism = minParallelism;
+        this.maxParallelism = maxParallelism;
+    }
+
+    /**
+     * @return the parallelism the pool starts with
+     */
+    static int initialParallelism(int minParallelism, int maxParallelism) {
+        return Math.max(minParallelism, Math.min(Runtime.getRuntime().availableProcessors(), maxParallelism));
+    }
+
+    /**
+     * @return the current parallelism of the pool
+     */
+    public int getParallelism() {
+        return this.pool.getParallelism();
+    }
+
+    /**
+     * @return the lower bound of the parallelism
+     */
+    public int getMinParallelism() {
+        return this.minParallelism;
+    }
+
+    /**
+     * @return the upper bound of the parallelism
+     */
+    public int getMaxParallelism() {
+        return this.maxParallelism;
+    }
+
+    /**
+     * @return the share of their time busy workers spent blocked at the last decision, from 0 to 1
+     */
+    public double getBlockingRatio() {
+        return this.blockingRatio;
+    }
+
+    /**
+     * @return the number of times the pool has been resized
+     */
+    public long getResizeCount() {
+        return this.resizes;
+    }
+
+    /**
+     * @return the last resizes of the pool, oldest first
+     */
+    public List<Resize> getRecentResizes() {
+        synchronized (this.recentResizes) {
+            return List.copyOf(this.recentResizes);
+        }
+    }
+
+    /**
+     * Samples the pool, resizing it once enough samples have been taken.
+     */
+    void sample() {
+        this.activeSum += this.pool.getActiveThreadCount();
+        this.managedSum += this.managedBlocked.get();
+        this.backlog = Math.max(this.backlog, this.pool.getQueuedSubmissionCount() + this.pool.getQueuedTaskCount());
+        if (++this.samples < SAMPLES_PER_DECISION) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        long wall = now - this.lastDecision;
+        double active = (double) this.activeSum / this.samples;
+        double managed = (double) this.managedSum / this.samples;
+        long backlog = this.backlog;
+        this.samples = 0;
+        this.activeSum = 0;
+        this.managedSum = 0;
+        this.backlog = 0;
+        this.lastDecision = now;
+
+        double busy = Math.max(active - managed, 0) * wall;
+        long cpu = cpuTime();
+        double ratio = busy <= 0 || cpu < 0 ? 0 : Math.max(0, Math.min(1 - cpu / busy, 1));
+        this.blockingRatio = ratio;
+
+        // workers waiting for a processor look blocked too, but more of them would not help
+        boolean processorsBusy = cpu >= 0 && cpu >= this.processors * wall * 0.9;
+
+        int parallelism = this.pool.getParallelism();
+        int target;
+        if (backlog > 0 && active >= parallelism * 0.75) {
+            // saturated, keep every processor busy
+            if (processorsBusy) {
+                target = Math.min(parallelism, this.processors);
+            } else {
+                target = ratio >= 1 ? this.maxParallelism : (int) Math.ceil(this.processors / (1 - ratio));
+            }
+        } else if (backlog == 0 && active < parallelism * 0.5) {
+            // mostly idle, keep some headroom over the workers in use
+            target = (int) Math.ceil(active * 2);
+        } else {
+            return;
+        }
+        target = Math.max(parallelism / 2, Math.min(target, parallelism * 2));
+        target = Math.max(this.minParallelism, Math.min(target, this.maxParallelism));
+        if (target != parallelism) {
+            resize(parallelism, target, ratio, backlog);
+        }
+    }
+
+    /**
+     * @return the CPU time spent by the workers since the last call, or -1 if unsupported
+     */
+    private long cpuTime() {
+        if (!THREADS.isThreadCpuTimeSupported() || !THREADS.isThreadCpuTimeEnabled()) {
+            return -1;
+        }
+        Map<Long, Long> cpuTimes = new HashMap<>();
+        long total = 0;
+        for (Thread worker : this.workers) {
+            long id = worker.threadId();
+            long time = THREADS.getThreadCpuTime(id);
+            if (time < 0) {
+                continue;
+            }
+            cpuTimes.put(id, time);
+            total += time - this.cpuTimes.getOrDefault(id, 0L);
+        }
+        this.cpuTimes = cpuTimes;
+        return total;
+    }
+
+    private void resize(int from, int to, double ratio, long backlog) {
+        this.pool.setParallelism(to);
+        this.resizes++;
+        synchronized (this.recentResizes) {
+            if (this.recentResizes.size() == RECENT_RESIZES) {
+                this.recentResizes.removeFirst();
+            }
+            this.recentResizes.addLast(new Resize(Instant.now(), from, to, ratio, backlog));
+        }
+        log.info("Resized the Laboratory worker pool from {} to {} (blocking ratio {}, backlog {})",
+                from, to, String.format("%.2f", ratio), backlog);
+    }
+
+    /**
+     * A resize of the worker pool.
+     *
+     * @param time          the time of the resize
+     * @param from          the parallelism before the resize
+     * @param to            the parallelism after the resize
+     * @param blockingRatio the share of their time busy workers spent blocked
+     * @param backlog       the largest number of tasks waiting for a worker since the previous decision
+     */
+    public record Resize(Instant time, int from, int to, double blockingRatio, long backlog) {
+    }
+}
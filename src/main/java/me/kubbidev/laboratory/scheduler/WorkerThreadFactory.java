@@ -0,0 +1,109 @@
+package me.kubbidev.laboratory.scheduler;
+
+import lombok.extern.slf4j.Slf4j;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Creates the worker threads of a single scheduler pool.
+ * <p>
+ * Every factory names its threads with its own prefix, and keeps track of
+ * the live ones, so a scheduler shutting down only reports its own workers,
+ * whatever the number of schedulers in the JVM.
+ */
+@Slf4j
+final class WorkerThreadFactory implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+    /**
+     * The default parallelism of worker pools.
+     */
+    static final int PARALLELISM = 16;
+
+    static final Thread.UncaughtExceptionHandler EXCEPTION_HANDLER = (t, e) ->
+            log.warn("Thread " + t.getName() + " threw an uncaught exception", e);
+
+    private static final AtomicInteger POOLS = new AtomicInteger(0);
+
+    private final String prefix = "laboratory-worker-" + POOLS.getAndIncrement() + "-";
+    private final AtomicInteger count = new AtomicInteger(0);
+    private final Set<Thread> threads = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Creates a pool of the default parallelism using this factory.
+     *
+     * @return the pool
+     */
+    ForkJoinPool newPool() {
+        return new ForkJoinPool(PARALLELISM, this, EXCEPTION_HANDLER, false);
+    }
+
+    /**
+     * @return the live threads created by this factory
+     */
+    Set<Thread> getThreads() {
+        return this.threads;
+    }
+
+    @Override
+    public ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+        ForkJoinWorkerThread thread = new WorkerThread(pool, this.threads);
+        thread.setDaemon(true);
+        thread.setName(this.prefix + this.count.getAndIncrement());
+        return thread;
+    }
+
+    /**
+     * Shuts a pool created with this factory down, waiting for its running
+     * tasks and reporting the workers still busy after a minute.
+     *
+     * @param pool the pool
+     */
+    void shutdown(ForkJoinPool pool) {
+        pool.shutdown();
+        try {
+            if (!pool.awaitTermination(1, TimeUnit.MINUTES)) {
+                log.error("Timed out waiting for the Laboratory worker thread pool to terminate");
+                for (Thread thread : this.threads) {
+                    reportRunningTask(thread, thread.getStackTrace());
+                }
+            }
+        } catch (InterruptedException e) {
+            log.error("Interrupted while waiting for the Laboratory worker thread pool to terminate", e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    static void reportRunningTask(Thread thread, StackTraceElement[] stack) {
+        log.warn("Thread " + thread.getName() + " is blocked, and may be the reason for the slow shutdown!\n" +
+                Arrays.stream(stack).map(el -> "  " + el).collect(Collectors.joining("\n"))
+        );
+    }
+
+    private static final class WorkerThread extends ForkJoinWorkerThread {
+        private final Set<Thread> threads;
+
+        WorkerThread(ForkJoinPool pool, Set<Thread> threads) {
+            super(pool);
+            this.threads = threads;
+        }
+
+        @Override
+        protected void onStart() {
+            super.onStart();
+            this.threads.add(this);
+        }
+
+        @Override
+        protected void onTermination(@Nullable Throwable exception) {
+            this.threads.remove(this);
+            super.onTermination(exception);
+        }
+    }
+}
@@ -0,0 +1,366 @@
+package me.kubbidev.laboratory.serialize.storage;
+
+import com.google.common.base.Preconditions;
+import lombok.extern.slf4j.Slf4j;
+import me.kubbidev.laboratory.cooldown.Cooldown;
+import me.kubbidev.laboratory.cooldown.CooldownMap;
+import me.kubbidev.laboratory.cooldown.TimeSource;
+import me.kubbidev.laboratory.scheduler.SchedulerAdapter;
+import me.kubbidev.laboratory.scheduler.SchedulerTask;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.OptionalLong;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Extension of {@link FileStorageHandler} saving the contents of a
+ * {@link CooldownMap} in a compact binary format.
+ * <p>
+ * A file is a sequence of segments, each made of a header holding the
+ * wall clock time it was written at and its length, followed by one record per active
+ * cooldown: the encoded key, the time elapsed since the cooldown was last
+ * tested, and its timeout, both as variable length integers. Inactive
+ * cooldowns behave like absent ones and are not saved.
+ * <p>
+ * A full snapshot replaces the file with a single segment, while an
+ * {@link #saveIncremental(CooldownMap) incremental snapshot} appends a
+ * segment holding only the cooldowns tested or reset since the previous
+ * snapshot. Other changes, such as reductions, are only captured by the
+ * next full snapshot. Segments are read back in order, later records
+ * replacing earlier ones, and a segment left incomplete by a crash is
+ * ignored.
+ * <p>
+ * Records are streamed through a {@link FileChannel} with a fixed size
+ * buffer, so memory use does not depend on the number of cooldowns.
+ *
+ * @param <T> the type of key
+ */
+@Slf4j
+public class CooldownSnapshotHandler<T> extends FileStorageHandler<CooldownMap<T>> {
+    private static final int MAGIC = 0x434F4F4C; // "COOL"
+    private static final byte VERSION = 1;
+
+    private static final byte FULL = 0;
+    private static final byte INCREMENTAL = 1;
+
+    // magic, version, type, wall time, length and record count
+    private static final int HEADER_SIZE = Integer.BYTES + 2 + Long.BYTES + Long.BYTES + Integer.BYTES;
+    private static final int LENGTH_OFFSET = HEADER_SIZE - Long.BYTES - Integer.BYTES;
+
+    // the key followed by two variable length longs
+    private static final int MAX_RECORD_SIZE = KeyCodec.MAX_SIZE + 2 * 10;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    // the record count of a segment which has not been completely written
+    private static final int INCOMPLETE = -1;
+
+    protected final KeyCodec<T> codec;
+    protected final Supplier<? extends CooldownMap<T>> mapFactory;
+    protected final TimeSource timeSource;
+    protected final boolean downtimeElapses;
+
+    // the wall clock time of the last snapshot, or -1 if no snapshot has been taken, guarded by this
+    private long lastSnapshot = -1;
+
+    public CooldownSnapshotHandler(String fileName, String fileExtension, Path dataFolder, KeyCodec<T> codec, Supplier<? extends CooldownMap<T>> mapFactory) {
+        this(fileName, fileExtension, dataFolder, codec, mapFactory, TimeSource.system(), true);
+    }
+
+    /**
+     * @param codec           the codec of keys
+     * @param mapFactory      the factory of maps created when loading
+     * @param timeSource      the time source of restored cooldowns
+     * @param downtimeElapses whether cooldowns keep elapsing while no snapshot is loaded
+     */
+    public CooldownSnapshotHandler(String fileName, String fileExtension, Path dataFolder, KeyCodec<T> codec, Supplier<? extends CooldownMap<T>> mapFactory,
+                                   TimeSource timeSource, boolean downtimeElapses) {
+        super(fileName, fileExtension, dataFolder);
+        this.codec = codec;
+        this.mapFactory = mapFactory;
+        this.timeSource = timeSource;
+        this.downtimeElapses = downtimeElapses;
+    }
+
+    @Override
+    protected CooldownMap<T> readFromFile(Path path) {
+        CooldownMap<T> map = this.mapFactory.get();
+        try {
+            restore(path, map);
+        } catch (IOException e) {
+            log.error("Unable to read cooldown snapshot " + path, e);
+        }
+        return map;
+    }
+
+    @Override
+    protected void saveToFile(Path path, CooldownMap<T> map) {
+        try {
+            writeFull(path, map);
+        } catch (IOException e) {
+            log.error("Unable to write cooldown snapshot " + path, e);
+        }
+    }
+
+    /**
+     * Restores the cooldowns of the snapshot file into the given map.
+     *
+     * @param into the map to restore cooldowns into
+     * @return the number of restored cooldowns
+     * @throws IOException if an I/O error occurs
+     */
+    public int restore(CooldownMap<T> into) throws IOException {
+        Path file = resolveFile();
+        return Files.exists(file) ? restore(file, into) : 0;
+    }
+
+    /**
+     * Replaces the snapshot file with a full snapshot of the given map.
+     * <p>
+     * The snapshot is written to a temporary file first, which is then
+     * moved over the previous snapshot.
+     *
+     * @param map the map
+     * @throws IOException if an I/O error occurs
+     */
+    public void saveFull(CooldownMap<T> map) throws IOException {
+        writeFull(resolveFile(), map);
+    }
+
+    /**
+     * Appends the cooldowns tested or reset since the previous snapshot to
+     * the snapshot file, or takes a full snapshot if there is none yet.
+     *
+     * @param map the map
+     * @throws IOException if an I/O error occurs
+     */
+    public synchronized void saveIncremental(CooldownMap<T> map) throws IOException {
+        Path file = resolveFile();
+        if (this.lastSnapshot < 0 || !Files.exists(file)) {
+            writeFull(file, map);
+            return;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // drop a segment left incomplete, which would hide this one
+            channel.truncate(completeLength(channel));
+            channel.position(channel.size());
+            writeSegment(channel, INCREMENTAL, map, System.currentTimeMillis() - this.lastSnapshot);
+        }
+    }
+
+    /**
+     * Takes snapshots of the given map periodically, one full snapshot every
+     * given number of snapshots and incremental snapshots in between.
+     * <p>
+     * Snapshots are taken from a scheduler thread, so the map must be
+     * thread safe.
+     *
+     * @param scheduler the scheduler running the snapshots
+     * @param map       the map
+     * @param interval  the interval between two snapshots
+     * @param unit      the unit of the interval
+     * @param fullEvery the number of snapshots between two full snapshots
+     * @return the repeating task
+     */
+    public SchedulerTask scheduleSnapshots(SchedulerAdapter scheduler, CooldownMap<T> map, long interval, TimeUnit unit, int fullEvery) {
+        Preconditions.checkArgument(fullEvery > 0, "full snapshot interval must be strictly positive");
+        return scheduler.asyncRepeating(new Runnable() {
+            private int count;
+
+            @Override
+            public void run() {
+                try {
+                    if (this.count++ % fullEvery == 0) {
+                        saveFull(map);
+                    } else {
+                        saveIncremental(map);
+                    }
+                } catch (IOException e) {
+                    log.error("Unable to write cooldown snapshot", e);
+                }
+            }
+        }, interval, unit);
+    }
+
+    private synchronized void writeFull(Path path, CooldownMap<T> map) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            writeSegment(channel, FULL, map, Long.MAX_VALUE);
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Writes a segment at the position of the channel, holding the active
+     * cooldowns tested at most the given time ago.
+     */
+    private void writeSegment(FileChannel channel, byte type, CooldownMap<T> map, long maxElapsed) throws IOException {
+        long start = channel.position();
+        long wallTime = System.currentTimeMillis();
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        buffer.putInt(MAGIC).put(VERSION).put(type).putLong(wallTime).putLong(0).putInt(INCOMPLETE);
+
+        // the time of the last seen time source at the start of the segment, cooldowns usually sharing one
+        TimeSource source = null;
+        long sourceTime = 0;
+
+        int count = 0;
+        for (Map.Entry<T, Cooldown> entry : map.getAll().entrySet()) {
+            Cooldown cooldown = entry.getValue();
+            OptionalLong lastTested = cooldown.getLastTested();
+            if (lastTested.isEmpty()) {
+                continue;
+            }
+            if (cooldown.getTimeSource() != source) {
+                source = cooldown.getTimeSource();
+                sourceTime = source.currentTimeMillis() - (System.currentTimeMillis() - wallTime);
+            }
+            long elapsed = sourceTime - lastTested.getAsLong();
+            long timeout = cooldown.getTimeout();
+            if (elapsed > timeout || elapsed > maxElapsed) {
+                continue;
+            }
+
+            if (buffer.remaining() < MAX_RECORD_SIZE) {
+                flush(channel, buffer);
+            }
+            this.codec.write(buffer, entry.getKey());
+            putVarLong(buffer, elapsed);
+            putVarLong(buffer, timeout);
+            count++;
+        }
+        flush(channel, buffer);
+
+        // the segment only counts once all of its records are on disk
+        channel.force(false);
+        ByteBuffer trailer = ByteBuffer.allocate(Long.BYTES + Integer.BYTES).putLong(channel.position() - start).putInt(count).flip();
+        channel.write(trailer, start + LENGTH_OFFSET);
+        channel.force(false);
+        this.lastSnapshot = wallTime;
+    }
+
+    private synchronized int restore(Path path, CooldownMap<T> into) throws IOException {
+        long wallNow = System.currentTimeMillis();
+        long now = this.timeSource.currentTimeMillis();
+
+        int restored = 0;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).flip();
+            while (fill(channel, buffer, HEADER_SIZE)) {
+                if (buffer.getInt() != MAGIC || buffer.get() != VERSION) {
+                    log.warn("Ignoring the remainder of cooldown snapshot " + path + ": unknown segment");
+                    break;
+                }
+                buffer.get();
+                long wallTime = buffer.getLong();
+                buffer.getLong();
+                int count = buffer.getInt();
+                if (count == INCOMPLETE) {
+                    log.warn("Ignoring the remainder of cooldown snapshot " + path + ": incomplete segment");
+                    break;
+                }
+
+                long downtime = this.downtimeElapses ? Math.max(wallNow - wallTime, 0) : 0;
+                try {
+                    for (int i = 0; i < count; i++) {
+                        fill(channel, buffer, MAX_RECORD_SIZE);
+                        T key = this.codec.read(buffer);
+                        long elapsed = getVarLong(buffer) + downtime;
+                        long timeout = getVarLong(buffer);
+                        boolean active = elapsed <= timeout;
+                        // inactive cooldowns are skipped, unless they replace a record of a previous segment
+                        if (active || into.get(key).isPresent()) {
+                            Cooldown cooldown = Cooldown.of(timeout, TimeUnit.MILLISECONDS, this.timeSource);
+                            cooldown.setLastTested(now - elapsed);
+                            into.put(key, cooldown);
+                        }
+                        if (active) {
+                            restored++;
+                        }
+                    }
+                } catch (BufferUnderflowException e) {
+                    log.warn("Ignoring the remainder of cooldown snapshot " + path + ": truncated segment");
+                    break;
+                }
+            }
+        }
+        this.lastSnapshot = Math.max(this.lastSnapshot, wallNow);
+        return restored;
+    }
+
+    /**
+     * Gets the length of the complete segments at the start of the channel.
+     */
+    private static long completeLength(FileChannel channel) throws IOException {
+        long position = 0;
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        while (true) {
+            header.clear();
+            if (channel.read(header, position) < HEADER_SIZE || header.getInt(0) != MAGIC || header.getInt(HEADER_SIZE - Integer.BYTES) == INCOMPLETE) {
+                return position;
+            }
+            long length = header.getLong(LENGTH_OFFSET);
+            if (position + length > channel.size()) {
+                return position;
+            }
+            position += length;
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Reads from the channel until the buffer holds at least the given
+     * number of bytes, or the end of the channel is reached.
+     *
+     * @return true if the buffer holds at least the given number of bytes
+     */
+    private static boolean fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && channel.read(buffer) >= 0) {
+            // keep reading
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        // zigzag encoding, so negative values stay short
+        long v = (value << 1) ^ (value >> 63);
+        while ((v & ~0x7FL) != 0) {
+            buffer.put((byte) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        buffer.put((byte) v);
+    }
+
+    private static long getVarLong(ByteBuffer buffer) {
+        long v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = buffer.get();
+            v |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                break;
+            }
+        }
+        return (v >>> 1) ^ -(v & 1);
+    }
+}
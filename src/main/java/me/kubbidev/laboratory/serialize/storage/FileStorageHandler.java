@@ -39,7 +39,7 @@ public abstract class FileStorageHandler<T> {
 
     protected abstract void saveToFile(Path path, T t);
 
-    private Path resolveFile() {
+    protected Path resolveFile() {
         return this.dataFolder.resolve(this.fileName + this.fileExtension);
     }
 
@@ -0,0 +1,89 @@
+package me.kubbidev.laboratory.serialize.storage;
+
+import com.google.common.base.Preconditions;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodes keys to a binary form and back.
+ * <p>
+ * An encoded key must not be longer than {@link #MAX_SIZE} bytes.
+ *
+ * @param <T> the type of key
+ */
+public interface KeyCodec<T> {
+
+    /**
+     * The maximum number of bytes of an encoded key
+     */
+    int MAX_SIZE = 1024;
+
+    /**
+     * Encodes longs as 8 bytes.
+     */
+    KeyCodec<Long> LONG = new KeyCodec<>() {
+        @Override
+        public void write(ByteBuffer buffer, Long key) {
+            buffer.putLong(key);
+        }
+
+        @Override
+        public Long read(ByteBuffer buffer) {
+            return buffer.getLong();
+        }
+    };
+
+    /**
+     * Encodes unique ids as 16 bytes.
+     */
+    KeyCodec<java.util.UUID> UUID = new KeyCodec<>() {
+        @Override
+        public void write(ByteBuffer buffer, java.util.UUID key) {
+            buffer.putLong(key.getMostSignificantBits());
+            buffer.putLong(key.getLeastSignificantBits());
+        }
+
+        @Override
+        public java.util.UUID read(ByteBuffer buffer) {
+            return new java.util.UUID(buffer.getLong(), buffer.getLong());
+        }
+    };
+
+    /**
+     * Encodes strings as their length followed by their UTF-8 bytes.
+     */
+    KeyCodec<String> STRING = new KeyCodec<>() {
+        @Override
+        public void write(ByteBuffer buffer, String key) {
+            byte[] bytes = key.getBytes(StandardCharsets.UTF_8);
+            Preconditions.checkArgument(bytes.length <= MAX_SIZE - Short.BYTES, "key is too long: %s bytes", bytes.length);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        @Override
+        public String read(ByteBuffer buffer) {
+            byte[] bytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+            buffer.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+    };
+
+    /**
+     * Writes the given key at the position of the buffer, which has at
+     * least {@link #MAX_SIZE} bytes remaining.
+     *
+     * @param buffer the buffer
+     * @param key    the key
+     */
+    void write(ByteBuffer buffer, T key);
+
+    /**
+     * Reads a key at the position of the buffer.
+     *
+     * @param buffer the buffer
+     * @return the key
+     */
+    T read(ByteBuffer buffer);
+}
@@ -0,0 +1,113 @@
+package me.kubbidev.laboratory.util;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * The bucket layout of a log-linear histogram.
+ * <p>
+ * Values below {@code 2^minExponent} share the first bucket, then every
+ * power of two up to {@code 2^maxExponent} is split into
+ * {@code 2^subBucketBits} linear buckets, and values above share the last
+ * one. The upper bound of the bucket of a value is therefore within
+ * {@code 2^-subBucketBits} of the value, relatively.
+ * <p>
+ * Bucketing a value only takes a few bit operations, and never allocates.
+ */
+public final class LogLinearBuckets {
+    private final int minExponent;
+    private final int maxExponent;
+    private final int subBucketBits;
+    private final int subBuckets;
+    private final int count;
+
+    /**
+     * @param minExponent   the exponent of the smallest power of two split into buckets
+     * @param maxExponent   the exponent of the largest power of two split into buckets
+     * @param subBucketBits the number of bits of the linear buckets of each power of two
+     */
+    public LogLinearBuckets(int minExponent, int maxExponent, int subBucketBits) {
+        Preconditions.checkArgument(minExponent <= maxExponent, "minExponent cannot be greater than maxExponent");
+        Preconditions.checkArgument(minExponent >= Double.MIN_EXPONENT && maxExponent <= 62, "exponents must be between %s and 62", Double.MIN_EXPONENT);
+        Preconditions.checkArgument(subBucketBits >= 0 && subBucketBits <= 10, "subBucketBits must be between 0 and 10");
+        this.minExponent = minExponent;
+        this.maxExponent = maxExponent;
+        this.subBucketBits = subBucketBits;
+        this.subBuckets = 1 << subBucketBits;
+        this.count = 1 + (maxExponent - minExponent + 1) * this.subBuckets;
+    }
+
+    /**
+     * @return the number of buckets
+     */
+    public int count() {
+        return this.count;
+    }
+
+    /**
+     * Gets the bucket counting the given value, non-positive and NaN values
+     * being counted in the first bucket.
+     *
+     * @param value the value
+     * @return the index of the bucket
+     */
+    public int bucket(double value) {
+        int exponent = Math.getExponent(value);
+        if (!(value > 0) || exponent < this.minExponent) {
+            return 0;
+        }
+        if (exponent > this.maxExponent) {
+            return this.count - 1;
+        }
+        int subBucket = (int) (Double.doubleToRawLongBits(value) >>> (52 - this.subBucketBits)) & (this.subBuckets - 1);
+        return 1 + (exponent - this.minExponent) * this.subBuckets + subBucket;
+    }
+
+    /**
+     * Gets the bucket counting the given value, non-positive values being
+     * counted in the first bucket.
+     *
+     * @param value the value
+     * @return the index of the bucket
+     */
+    public int bucket(long value) {
+        if (value <= 0) {
+            return 0;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        if (exponent < this.minExponent) {
+            return 0;
+        }
+        if (exponent > this.maxExponent) {
+            return this.count - 1;
+        }
+        long mantissa = exponent >= this.subBucketBits ? value >>> (exponent - this.subBucketBits) : value << (this.subBucketBits - exponent);
+        int subBucket = (int) mantissa & (this.subBuckets - 1);
+        return 1 + (exponent - this.minExponent) * this.subBuckets + subBucket;
+    }
+
+    /**
+     * Gets the upper bound of the given bucket, every value counted in the
+     * bucket being smaller. The last bucket also counts the larger values.
+     *
+     * @param bucket the index of the bucket
+     * @return the upper bound
+     */
+    public double upperBound(int bucket) {
+        if (bucket == 0) {
+            return Math.scalb(1.0, this.minExponent);
+        }
+        int exponent = (bucket - 1) / this.subBuckets + this.minExponent;
+        int subBucket = (bucket - 1) % this.subBuckets;
+        return Math.scalb(1.0 + (double) (subBucket + 1) / this.subBuckets, exponent);
+    }
+
+    /**
+     * Gets the largest long counted in the given bucket.
+     *
+     * @param bucket the index of the bucket
+     * @return the largest value
+     */
+    public long longUpperBound(int bucket) {
+        return (long) Math.ceil(upperBound(bucket)) - 1;
+    }
+}
@@ -7,6 +7,7 @@ import org.jetbrains.annotations.Nullable;
 
 import java.lang.annotation.*;
 import java.lang.reflect.Method;
+import java.time.Clock;
 import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDateTime;
@@ -20,6 +21,9 @@ public abstract class ScheduledTask implements Runnable {
     @Getter
     private final ScheduleSettings scheduleSettings;
 
+    @Getter
+    private final Clock clock;
+
     @Nullable
     private DayOfWeek initialDay = null;
 
@@ -33,8 +37,18 @@ public abstract class ScheduledTask implements Runnable {
     private SchedulerTask repeatingTask;
 
     public ScheduledTask(SchedulerAdapter schedulerAdapter, ScheduleSettings scheduleSettings) {
+        this(schedulerAdapter, scheduleSettings, Clock.systemDefaultZone());
+    }
+
+    /**
+     * @param schedulerAdapter the scheduler running the task
+     * @param scheduleSettings the interval between two runs
+     * @param clock            the clock the schedule dates are computed from
+     */
+    public ScheduledTask(SchedulerAdapter schedulerAdapter, ScheduleSettings scheduleSettings, Clock clock) {
         this.schedulerAdapter = schedulerAdapter;
         this.scheduleSettings = scheduleSettings;
+        this.clock = clock;
 
         InitialLocalDay initialLocalDay = lookupAnnotation(InitialLocalDay.class);
         if (initialLocalDay != null) {
@@ -104,11 +118,11 @@ public abstract class ScheduledTask implements Runnable {
     }
 
     private long calculateInitialMillisDelay() {
-        return Duration.between(LocalDateTime.now(), getNextScheduleDate()).toMillis();
+        return Duration.between(LocalDateTime.now(this.clock), getNextScheduleDate()).toMillis();
     }
 
     public synchronized LocalDateTime getNextScheduleDate() {
-        LocalDateTime currentDate = LocalDateTime.now();
+        LocalDateTime currentDate = LocalDateTime.now(this.clock);
         LocalDateTime targetTime = this.initialTime == null ? currentDate
                 : currentDate.with(this.initialTime);
 
@@ -0,0 +1,37 @@
+package me.kubbidev.laboratory.damage;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Computes final packet values using the incubating vector api.
+ * <p>
+ * This class lives in its own source set, the only one compiled against the
+ * {@code jdk.incubator.vector} module. It is loaded by name, and only when
+ * the module is available, see {@link DamageBatch}.
+ */
+final class VectorDamageKernel implements DamageKernel {
+    private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+    VectorDamageKernel() {
+    }
+
+    /**
+     * Computes {@code value * max(0, 1 + additive) * multiplicative} for every
+     * packet, performing the exact same operations as the scalar path.
+     */
+    @Override
+    public void finalValues(double[] values, double[] additiveModifiers, double[] multiplicativeModifiers, double[] out, int length) {
+        int i = 0;
+        for (int upper = SPECIES.loopBound(length); i < upper; i += SPECIES.length()) {
+            DoubleVector value = DoubleVector.fromArray(SPECIES, values, i);
+            DoubleVector additive = DoubleVector.fromArray(SPECIES, additiveModifiers, i);
+            DoubleVector multiplicative = DoubleVector.fromArray(SPECIES, multiplicativeModifiers, i);
+
+            value.mul(additive.add(1).max(0)).mul(multiplicative).intoArray(out, i);
+        }
+        for (; i < length; i++) {
+            out[i] = DamageMetadata.finalValue(values[i], additiveModifiers[i], multiplicativeModifiers[i]);
+        }
+    }
+}